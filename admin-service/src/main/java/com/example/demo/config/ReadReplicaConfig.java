@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Routes read-only transactions to the replicas listed in
+ * {@code spring.datasource.replica.urls}. Without that property the plain
+ * auto-configured datasource is used. Replica lag is measured every
+ * {@code lag-check-interval}, and callers that pass back the
+ * {@code X-Last-Write} header read their own writes.
+ */
+@Configuration
+@ConditionalOnProperty("spring.datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+            @Value("${spring.datasource.replica.urls}") List<String> urls,
+            @Value("${spring.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${spring.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${spring.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval,
+            @Value("${spring.datasource.replica.retry-after:10s}") Duration retryAfter) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url).username(username).password(password).build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, lagCheckInterval, retryAfter);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource routingDataSource) {
+        return new ReadYourWritesFilter(routingDataSource);
+    }
+
+}
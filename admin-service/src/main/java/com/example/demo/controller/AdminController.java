@@ -1,8 +1,12 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,15 +15,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.dto.Booking;
+import com.example.demo.dto.BookingPage;
 import com.example.demo.dto.Event;
 import com.example.demo.dto.User;
 import com.example.demo.entity.Admin;
 import com.example.demo.exception.AdminNotFoundException;
 import com.example.demo.exception.EventNotFoundException;
 import com.example.demo.service.AdminService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
@@ -31,6 +39,7 @@ import jakarta.validation.Valid;
 public class AdminController {
 
 	private AdminService adminService;
+	private ObjectMapper objectMapper;
 
 	/**
 	 * Constructs an instance of {@code AdminController} with the specified services
@@ -40,9 +49,11 @@ public class AdminController {
 	 * @param eventClient   The Feign client for event-related operations.
 	 * @param bookingClient The Feign client for booking-related operations.
 	 * @param userClient    The Feign client for user-related operations.
+	 * @param objectMapper  The mapper used to write streamed bookings.
 	 */
-	public AdminController(AdminService adminService) {
+	public AdminController(AdminService adminService, ObjectMapper objectMapper) {
 		this.adminService = adminService;
+		this.objectMapper = objectMapper;
 	}
 
 	/**
@@ -172,6 +183,41 @@ public class AdminController {
 		return ResponseEntity.ok(response);
 	}
 
+	/**
+	 * Retrieves one page of bookings ordered by id.
+	 *
+	 * @param after The id of the last booking already seen, 0 for the first page.
+	 * @param limit The maximum number of bookings to return.
+	 * @return A {@code ResponseEntity} containing the page and the cursor of the
+	 *         next one.
+	 */
+	@GetMapping("/get-bookings/page")
+	public ResponseEntity<BookingPage> getBookingPage(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(defaultValue = "100") int limit) {
+		return ResponseEntity.ok(adminService.getBookingPage(after, limit));
+	}
+
+	/**
+	 * Streams all bookings as newline-delimited JSON, pulling them from the
+	 * booking service a page at a time.
+	 *
+	 * @return A {@code ResponseEntity} whose body writes one booking per line.
+	 */
+	@GetMapping("/get-bookings/stream")
+	public ResponseEntity<StreamingResponseBody> streamBookings() {
+		StreamingResponseBody body = out -> adminService.forEachBooking(booking -> writeLine(out, booking));
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+	}
+
+	private void writeLine(OutputStream out, Booking booking) {
+		try {
+			out.write(objectMapper.writeValueAsBytes(booking));
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	/**
 	 * Retrieves a list of all registered users.
 	 *
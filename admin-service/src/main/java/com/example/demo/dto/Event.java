@@ -4,6 +4,9 @@ import java.util.Date;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Data;
 
@@ -20,4 +23,12 @@ public class Event {
 	private String venue;
 	@NotEmpty(message = "provide a brief description")
 	private String description;
+	@Min(value = 1, message = "capacity must be at least 1")
+	private Integer capacity;
+	@DecimalMin(value = "-90.0", message = "latitude must be between -90 and 90")
+	@DecimalMax(value = "90.0", message = "latitude must be between -90 and 90")
+	private Double latitude;
+	@DecimalMin(value = "-180.0", message = "longitude must be between -180 and 180")
+	@DecimalMax(value = "180.0", message = "longitude must be between -180 and 180")
+	private Double longitude;
 }
\ No newline at end of file
@@ -7,14 +7,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import com.example.demo.dto.Booking;
+import com.example.demo.dto.BookingPage;
 
 @FeignClient("BOOKING-SERVICE")
 public interface BookingClient {
 	@GetMapping("/bookings")
 	public ResponseEntity<List<Booking>> getAllBookings();
 
+	@GetMapping("/bookings/page")
+	public ResponseEntity<BookingPage> getBookingPage(@RequestParam("after") int after, @RequestParam("limit") int limit);
+
 	@DeleteMapping("/bookings/event/{eventId}")
 	public ResponseEntity<Void> deleteBookingByEventId(@PathVariable int eventId);
 
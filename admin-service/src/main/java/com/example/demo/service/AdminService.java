@@ -1,8 +1,10 @@
 package com.example.demo.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.example.demo.dto.Booking;
+import com.example.demo.dto.BookingPage;
 import com.example.demo.dto.Event;
 import com.example.demo.dto.User;
 import com.example.demo.entity.Admin;
@@ -29,6 +31,10 @@ public interface AdminService {
 	List<Event> getAllEvents();
 	
 	List<Booking> getAllBookings();
+
+	BookingPage getBookingPage(int after, int limit);
+
+	void forEachBooking(Consumer<Booking> consumer);
 	
 	List<User> getAllUsers();
 }
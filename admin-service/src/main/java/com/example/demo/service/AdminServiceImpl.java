@@ -1,10 +1,13 @@
 package com.example.demo.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.dto.Booking;
+import com.example.demo.dto.BookingPage;
 import com.example.demo.dto.Event;
 import com.example.demo.dto.User;
 import com.example.demo.entity.Admin;
@@ -60,6 +63,7 @@ public class AdminServiceImpl implements AdminService {
      *
      * @return A list of {@code Admin} entities.
      */
+    @Transactional(readOnly = true)
     public List<Admin> getAll() {
         return repo.findAll();
     }
@@ -71,6 +75,7 @@ public class AdminServiceImpl implements AdminService {
      * @return The {@code Admin} entity if found, or {@code null} if not found.
      * @throws AdminNotFoundException if the admin entity is not found.
      */
+    @Transactional(readOnly = true)
     public Admin getById(Integer id) throws AdminNotFoundException {
         return repo.findById(id).orElseThrow(() -> new AdminNotFoundException(message + id));
     }
@@ -166,6 +171,41 @@ public class AdminServiceImpl implements AdminService {
         return bookingClient.getAllBookings().getBody();
     }
 
+    /**
+     * Page size used when walking through all bookings.
+     */
+    private static final int BOOKING_PAGE_SIZE = 500;
+
+    /**
+     * Retrieves one page of bookings ordered by id using the BookingClient.
+     *
+     * @param after The id of the last booking already seen, 0 for the first page.
+     * @param limit The maximum number of bookings to return.
+     * @return A {@code BookingPage} holding the bookings and the cursor of the
+     *         next page.
+     */
+    public BookingPage getBookingPage(int after, int limit) {
+        return bookingClient.getBookingPage(after, limit).getBody();
+    }
+
+    /**
+     * Hands every booking to the consumer, fetching them a page at a time so
+     * that only one page is held in memory.
+     *
+     * @param consumer The consumer that receives each booking in id order.
+     */
+    public void forEachBooking(Consumer<Booking> consumer) {
+        Integer after = 0;
+        while (after != null) {
+            BookingPage page = getBookingPage(after, BOOKING_PAGE_SIZE);
+            if (page == null) {
+                return;
+            }
+            page.getItems().forEach(consumer);
+            after = page.getNextAfter();
+        }
+    }
+
     /**
      * Retrieves all users using the UserClient.
      *
@@ -5,11 +5,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
 
+import com.example.demo.util.IdentityHeaderSigner;
 import com.example.demo.util.JwtUtil;
+import com.example.demo.util.VerifiedToken;
 
 import reactor.core.publisher.Mono;
 
@@ -17,7 +22,7 @@ import reactor.core.publisher.Mono;
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
 
     @Autowired
-    private RouteValidator validator;
+    private RouteAuthorizationMatcher matcher;
 
     @Autowired
     private JwtUtil util;
@@ -32,40 +37,64 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
-            if (validator.isSecured.test(exchange.getRequest())) {
-                if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
-                    return handleUnauthorized(exchange.getResponse(), "Missing authorization header");
-                }
-
-                String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    authHeader = authHeader.substring(7);
-                }
-
-                try {
-                    String role = util.extractRolesFromToken(authHeader);
-                    String requestedPath = exchange.getRequest().getPath().toString();
-                    String method = exchange.getRequest().getMethod().name();
-
-                    if (!isAuthorized(role, requestedPath, method)) {
-                        return handleUnauthorized(exchange.getResponse(), "Unauthorized access");
-                    }
-
-                } catch (Exception e) {
-                    return handleUnauthorized(exchange.getResponse(), "Invalid token");
-                }
+            ServerHttpRequest request = exchange.getRequest();
+            String requestedPath = request.getPath().value();
+            HttpMethod method = request.getMethod();
+
+            String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                authHeader = authHeader.substring(7);
+            }
+
+            if (matcher.isOpen(requestedPath, method)) {
+                // open routes still get the caller's identity when a valid token is sent
+                return chain.filter(withIdentity(exchange, authHeader != null ? verifyQuietly(authHeader) : null));
+            }
+
+            if (authHeader == null) {
+                return handleUnauthorized(exchange.getResponse(), "Missing authorization header");
+            }
+
+            VerifiedToken token;
+            try {
+                token = util.verify(authHeader);
+            } catch (Exception e) {
+                return handleUnauthorized(exchange.getResponse(), "Invalid token");
             }
-            return chain.filter(exchange);
+
+            if (!matcher.isAuthorized(token.roles(), requestedPath, method)) {
+                return handleUnauthorized(exchange.getResponse(), "Unauthorized access");
+            }
+            return chain.filter(withIdentity(exchange, token));
         };
     }
 
-    private boolean isAuthorized(String role, String path, String method) {
-        if ("ROLE_ADMIN".equalsIgnoreCase(role)) {
-            return path.startsWith("/events") || path.startsWith("/bookings");
-        } else if ("ROLE_USER".equalsIgnoreCase(role)) {
-            return (path.startsWith("/events") && method.equalsIgnoreCase("GET")) || path.startsWith("/bookings");
+    private VerifiedToken verifyQuietly(String token) {
+        try {
+            return util.verify(token);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces any client supplied identity header with the one signed for the
+     * verified token, so downstream services can trust it blindly.
+     */
+    private ServerWebExchange withIdentity(ServerWebExchange exchange, VerifiedToken token) {
+        boolean spoofed = exchange.getRequest().getHeaders().containsKey(IdentityHeaderSigner.HEADER);
+        // no identity when signing is not configured, the bearer token still goes through
+        String identity = token != null ? token.identity() : null;
+        if (identity == null && !spoofed) {
+            return exchange;
         }
-        return false;
+        ServerHttpRequest request = exchange.getRequest().mutate().headers(headers -> {
+            headers.remove(IdentityHeaderSigner.HEADER);
+            if (identity != null) {
+                headers.set(IdentityHeaderSigner.HEADER, identity);
+            }
+        }).build();
+        return exchange.mutate().request(request).build();
     }
 
     private Mono<Void> handleUnauthorized(ServerHttpResponse response, String message) {
@@ -0,0 +1,217 @@
+package com.example.demo.filter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.filter.RouteAuthorizationProperties.Rule;
+
+/**
+ * Authorization rules compiled into a path-segment trie at startup. A lookup
+ * walks the request path once, comparing segments in place, so its cost is
+ * bounded by the path depth rather than the number of configured rules and it
+ * allocates nothing per request.
+ */
+@Component
+public class RouteAuthorizationMatcher {
+
+    private static final String OPEN = "*";
+    private static final int ALL_METHODS = -1;
+
+    private final Node root = new Node();
+
+    @Autowired
+    public RouteAuthorizationMatcher(RouteAuthorizationProperties properties) {
+        this(properties.getRules());
+    }
+
+    RouteAuthorizationMatcher(List<Rule> rules) {
+        for (Rule rule : rules) {
+            add(rule);
+        }
+    }
+
+    /**
+     * @return {@code true} if the route can be called without a token
+     */
+    public boolean isOpen(String path, HttpMethod method) {
+        return match(root, path, 0, methodBit(method), null);
+    }
+
+    /**
+     * @return {@code true} if the route is open or the role was granted access to it
+     */
+    public boolean isAuthorized(String role, String path, HttpMethod method) {
+        return match(root, path, 0, methodBit(method), role);
+    }
+
+    private static boolean match(Node node, String path, int pos, int methodBit, String role) {
+        if (node.multi != null && node.multi.grants(methodBit, role)) {
+            return true;
+        }
+        int start = pos;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start == path.length()) {
+            return node.grants(methodBit, role);
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        Node literal = node.child(path, start, end);
+        if (literal != null && match(literal, path, end, methodBit, role)) {
+            return true;
+        }
+        return node.single != null && match(node.single, path, end, methodBit, role);
+    }
+
+    private void add(Rule rule) {
+        if (rule.getPath() == null || rule.getPath().isBlank()) {
+            throw new IllegalArgumentException("Authorization rule without a path");
+        }
+        String[] segments = Arrays.stream(rule.getPath().split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported as the last segment: " + rule.getPath());
+                }
+                if (node.multi == null) {
+                    node.multi = new Node();
+                }
+                node = node.multi;
+            } else if ("*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.single == null) {
+                    node.single = new Node();
+                }
+                node = node.single;
+            } else {
+                node = node.addChild(segment);
+            }
+        }
+
+        int methods = parseMethods(rule.getMethods());
+        for (String role : rule.getRoles().split(",")) {
+            role = role.trim();
+            if (OPEN.equals(role)) {
+                node.openMethods |= methods;
+            } else if (!role.isEmpty()) {
+                node.roleMethods.merge(role, methods, (a, b) -> a | b);
+            }
+        }
+    }
+
+    private static int parseMethods(String methods) {
+        if (methods == null || methods.isBlank()) {
+            return ALL_METHODS;
+        }
+        int mask = 0;
+        for (String method : methods.split(",")) {
+            mask |= methodBit(HttpMethod.valueOf(method.trim().toUpperCase()));
+        }
+        return mask;
+    }
+
+    private static int methodBit(HttpMethod method) {
+        switch (method.name()) {
+        case "GET":
+            return 1;
+        case "HEAD":
+            return 1 << 1;
+        case "POST":
+            return 1 << 2;
+        case "PUT":
+            return 1 << 3;
+        case "PATCH":
+            return 1 << 4;
+        case "DELETE":
+            return 1 << 5;
+        case "OPTIONS":
+            return 1 << 6;
+        case "TRACE":
+            return 1 << 7;
+        default:
+            return 1 << 8;
+        }
+    }
+
+    private static final class Node {
+
+        private String[] names = new String[0];
+        private Node[] children = new Node[0];
+        private Node single;
+        private Node multi;
+
+        private int openMethods;
+        // roles compare case-insensitively, as the old string checks did
+        private final Map<String, Integer> roleMethods = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        boolean grants(int methodBit, String role) {
+            if ((openMethods & methodBit) != 0) {
+                return true;
+            }
+            if (role == null || roleMethods.isEmpty()) {
+                return false;
+            }
+            Integer methods = roleMethods.get(role);
+            return methods != null && (methods & methodBit) != 0;
+        }
+
+        Node child(String path, int start, int end) {
+            int low = 0;
+            int high = names.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(names[mid], path, start, end);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(String name) {
+            int index = Arrays.binarySearch(names, name, (a, b) -> compare(a, b, 0, b.length()));
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node node = new Node();
+            names = insert(names, insertAt, name, new String[names.length + 1]);
+            children = insert(children, insertAt, node, new Node[children.length + 1]);
+            return node;
+        }
+
+        private static <T> T[] insert(T[] source, int index, T value, T[] target) {
+            System.arraycopy(source, 0, target, 0, index);
+            target[index] = value;
+            System.arraycopy(source, index, target, index + 1, source.length - index);
+            return target;
+        }
+
+        private static int compare(String name, String path, int start, int end) {
+            int length = end - start;
+            int common = Math.min(name.length(), length);
+            for (int i = 0; i < common; i++) {
+                int diff = name.charAt(i) - path.charAt(start + i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return name.length() - length;
+        }
+    }
+
+}
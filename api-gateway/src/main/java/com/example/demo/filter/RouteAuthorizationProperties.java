@@ -0,0 +1,73 @@
+package com.example.demo.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Declarative authorization table read from {@code gateway.authorization.rules}.
+ * Each rule grants a set of roles access to a path pattern for a set of HTTP
+ * methods; a role of {@code *} marks the route as open (no token required).
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.authorization")
+public class RouteAuthorizationProperties {
+
+	private List<Rule> rules = new ArrayList<>();
+
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	public void setRules(List<Rule> rules) {
+		this.rules = rules;
+	}
+
+	public static class Rule {
+
+		/** Ant-style pattern: literal segments, {@code *} or {@code {var}} for one segment, trailing {@code **}. */
+		private String path;
+
+		/** Comma separated HTTP methods, empty for all methods. */
+		private String methods = "";
+
+		/** Comma separated roles, {@code *} for an open route. */
+		private String roles = "";
+
+		public Rule() {
+		}
+
+		public Rule(String path, String methods, String roles) {
+			this.path = path;
+			this.methods = methods;
+			this.roles = roles;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public void setPath(String path) {
+			this.path = path;
+		}
+
+		public String getMethods() {
+			return methods;
+		}
+
+		public void setMethods(String methods) {
+			this.methods = methods;
+		}
+
+		public String getRoles() {
+			return roles;
+		}
+
+		public void setRoles(String roles) {
+			this.roles = roles;
+		}
+	}
+
+}
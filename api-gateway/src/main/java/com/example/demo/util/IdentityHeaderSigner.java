@@ -0,0 +1,70 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs the identity the gateway has verified so downstream services can trust
+ * it without parsing the JWT again or looking the user up.
+ * <p>
+ * Header format: {@code base64url(userId|expSeconds|roles|name) + "." + base64url(HMAC-SHA256)}.
+ * The name goes last so it may contain any character.
+ * <p>
+ * The key comes from {@code gateway.identity.secret}, shared with the services
+ * that trust the header, and must be at least 32 bytes. Without it no header
+ * is signed and downstream services verify the bearer token themselves.
+ */
+@Component
+public class IdentityHeaderSigner {
+
+    public static final String HEADER = "X-Authenticated-Identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKeySpec key;
+
+    public IdentityHeaderSigner(@Value("${gateway.identity.secret:}") String secret) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length == 0) {
+            this.key = null;
+        } else if (secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("gateway.identity.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        } else {
+            this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        }
+    }
+
+    /**
+     * @return the header value, or {@code null} when no secret is configured
+     */
+    public String sign(Integer userId, String name, String roles, long expiresAt) {
+        if (key == null) {
+            return null;
+        }
+        String payload = (userId != null ? userId : "") + "|" + (expiresAt / 1000) + "|"
+                + (roles != null ? roles : "") + "|" + name;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(hmac(payloadBytes));
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            // Mac instances are not thread-safe, signing only happens on a token cache miss
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign identity header", e);
+        }
+    }
+
+}
@@ -1,10 +1,12 @@
 package com.example.demo.util;
 
 import java.security.Key;
+import java.util.Date;
 
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -15,18 +17,38 @@ public class JwtUtil {
 
     public static final String SECRET = "d3780ec3d1cfaba271e0538d4fae686d8367e10155ee424691fbf191eabec53d";
 
+    // the parser is immutable and thread-safe, so the key is decoded only once
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(getSignKey()).build();
+
+    private final VerifiedTokenCache cache;
+    private final IdentityHeaderSigner signer;
+
+    public JwtUtil(VerifiedTokenCache cache, IdentityHeaderSigner signer) {
+        this.cache = cache;
+        this.signer = signer;
+    }
+
     public void validateToken(final String token) {
-        Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
+        verify(token);
     }
 
     public String extractRolesFromToken(final String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
-        System.out.println("Step2"+ claims);
-        String authorities = (String) claims.get("roles"); // Assuming roles are stored as a List<String> in "roles" claim
-        System.out.println("Step3"+ authorities);
-        // Convert authorities to roles in the format "ROLE_ADMIN" or "ROLE_USER"
+        // roles are stored as a comma separated string in the "roles" claim
+        return verify(token).roles();
+    }
+
+    public VerifiedToken verify(final String token) {
+        return cache.getOrVerify(token, this::parse);
+    }
 
-        return authorities;
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : 0L;
+        Integer userId = claims.get("userId", Integer.class);
+        String roles = (String) claims.get("roles");
+        String identity = signer.sign(userId, claims.getSubject(), roles, expiresAt);
+        return new VerifiedToken(claims.getSubject(), userId, roles, expiresAt, identity);
     }
 
     private Key getSignKey() {
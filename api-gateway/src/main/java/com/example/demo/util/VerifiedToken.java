@@ -0,0 +1,14 @@
+package com.example.demo.util;
+
+/**
+ * Claims of a bearer token whose signature has already been verified by the
+ * gateway, together with the signed identity header forwarded downstream.
+ * Instances are immutable so they can be shared from the cache.
+ */
+public record VerifiedToken(String subject, Integer userId, String roles, long expiresAt, String identity) {
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded cache of verified bearer tokens. Entries are keyed by a SHA-256
+ * digest of the token (the raw token is never kept) and are dropped once the
+ * token's {@code exp} has passed, so a hit can safely skip signature checks.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+
+    public VerifiedTokenCache(@Value("${gateway.token-cache.max-size:10000}") int maxSize, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("gateway.token.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("gateway.token.cache.requests").tag("result", "miss").register(registry);
+        this.expiredEvictions = Counter.builder("gateway.token.cache.evictions").tag("cause", "expired").register(registry);
+        this.sizeEvictions = Counter.builder("gateway.token.cache.evictions").tag("cause", "size").register(registry);
+        Gauge.builder("gateway.token.cache.size", entries, Map::size).register(registry);
+    }
+
+    /**
+     * Returns the cached claims for the token, or runs the verifier and caches
+     * its result. A verifier that throws leaves the cache untouched.
+     */
+    public VerifiedToken getOrVerify(String token, Function<String, VerifiedToken> verifier) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return cached;
+            }
+            if (entries.remove(key, cached)) {
+                expiredEvictions.increment();
+            }
+        }
+
+        misses.increment();
+        VerifiedToken verified = verifier.apply(token);
+        if (!verified.isExpired(now)) {
+            if (entries.size() >= maxSize) {
+                makeRoom(now);
+            }
+            entries.put(key, verified);
+        }
+        return verified;
+    }
+
+    private void makeRoom(long now) {
+        entries.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().isExpired(now);
+            if (expired) {
+                expiredEvictions.increment();
+            }
+            return expired;
+        });
+
+        // still full of live tokens: drop an arbitrary slice so the scan above
+        // is amortised over many inserts instead of running on every miss
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 16);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toEvict-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.demo.filter;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.HttpMethod;
+
+import com.example.demo.filter.RouteAuthorizationProperties.Rule;
+
+class RouteAuthorizationMatcherTests {
+
+	private final RouteAuthorizationMatcher matcher = new RouteAuthorizationMatcher(List.of(
+			new Rule("/auth/signup", "POST", "*"),
+			new Rule("/auth/authenticate", "POST", "*"),
+			new Rule("/auth/**", "", "ROLE_ADMIN"),
+			new Rule("/events/**", "GET", "ROLE_ADMIN,ROLE_USER"),
+			new Rule("/events/**", "", "ROLE_ADMIN"),
+			new Rule("/bookings/**", "", "ROLE_ADMIN,ROLE_USER"),
+			new Rule("/reports/{year}/summary", "GET", "ROLE_ADMIN")));
+
+	@Test
+	void testOpenRoutes() {
+		assertTrue(matcher.isOpen("/auth/authenticate", HttpMethod.POST));
+		assertTrue(matcher.isOpen("/auth/signup", HttpMethod.POST));
+		assertFalse(matcher.isOpen("/auth/authenticate", HttpMethod.GET));
+		assertFalse(matcher.isOpen("/auth/get/1", HttpMethod.GET));
+		assertFalse(matcher.isOpen("/auth", HttpMethod.GET));
+		assertFalse(matcher.isOpen("/events/1", HttpMethod.GET));
+		assertFalse(matcher.isOpen("/authx/1", HttpMethod.GET));
+	}
+
+	@Test
+	void testRoleAndMethodRules() {
+		assertTrue(matcher.isAuthorized("ROLE_USER", "/events/name/java", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized("ROLE_USER", "/events", HttpMethod.POST));
+		assertTrue(matcher.isAuthorized("role_admin", "/events", HttpMethod.POST));
+		assertTrue(matcher.isAuthorized("ROLE_USER", "/bookings/user/1/event/2", HttpMethod.DELETE));
+		assertFalse(matcher.isAuthorized("ROLE_GUEST", "/bookings", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized(null, "/bookings", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized("ROLE_ADMIN", "/unknown", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized("ROLE_USER", "/auth/get/1", HttpMethod.GET));
+		assertTrue(matcher.isAuthorized("ROLE_ADMIN", "/auth/get/1", HttpMethod.GET));
+	}
+
+	@Test
+	void testSingleSegmentWildcard() {
+		assertTrue(matcher.isAuthorized("ROLE_ADMIN", "/reports/2024/summary", HttpMethod.GET));
+		assertTrue(matcher.isAuthorized("ROLE_ADMIN", "//reports/2024/summary/", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized("ROLE_ADMIN", "/reports/2024/detail", HttpMethod.GET));
+		assertFalse(matcher.isAuthorized("ROLE_ADMIN", "/reports/2024/summary/extra", HttpMethod.GET));
+	}
+
+	@Test
+	void testLargeRuleTable() {
+		RouteAuthorizationMatcher large = new RouteAuthorizationMatcher(rules(800));
+		for (String path : paths(800)) {
+			assertTrue(large.isAuthorized("ROLE_USER", path, HttpMethod.GET), path);
+		}
+		assertTrue(large.isAuthorized("ROLE_ADMIN", "/service799/admin/reset", HttpMethod.POST));
+		assertFalse(large.isAuthorized("ROLE_USER", "/service799/admin/reset", HttpMethod.POST));
+		assertFalse(large.isAuthorized("ROLE_USER", "/service800/items/1/details", HttpMethod.GET));
+	}
+
+	/**
+	 * Micro-benchmark, run with {@code -Dbenchmark=true}: lookup cost must stay
+	 * flat when the rule table grows from a handful of routes to several hundred.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	void testLookupCostIsIndependentOfRuleCount() {
+		RouteAuthorizationMatcher small = new RouteAuthorizationMatcher(rules(10));
+		RouteAuthorizationMatcher large = new RouteAuthorizationMatcher(rules(800));
+		String[] smallPaths = paths(10);
+		String[] largePaths = paths(800);
+
+		for (int i = 0; i < 5; i++) {
+			lookups(small, smallPaths);
+			lookups(large, largePaths);
+		}
+		long smallNanos = Long.MAX_VALUE;
+		long largeNanos = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			smallNanos = Math.min(smallNanos, lookups(small, smallPaths));
+			largeNanos = Math.min(largeNanos, lookups(large, largePaths));
+		}
+
+		System.out.printf("route matcher: 10 rules %d ns/op, 800 rules %d ns/op%n",
+				smallNanos / LOOKUPS, largeNanos / LOOKUPS);
+		// binary search over 80x more siblings adds ~6 comparisons; allow generous jitter
+		assertTrue(largeNanos < smallNanos * 4, "lookup cost grew with the rule count");
+	}
+
+	private static final int LOOKUPS = 200_000;
+
+	private static long lookups(RouteAuthorizationMatcher matcher, String[] paths) {
+		int granted = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < LOOKUPS; i++) {
+			if (matcher.isAuthorized("ROLE_USER", paths[i % paths.length], HttpMethod.GET)) {
+				granted++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		assertTrue(granted > 0);
+		return elapsed;
+	}
+
+	private static List<Rule> rules(int count) {
+		List<Rule> rules = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			rules.add(new Rule("/service" + i + "/items/{id}/details", "GET", "ROLE_USER"));
+			rules.add(new Rule("/service" + i + "/admin/**", "", "ROLE_ADMIN"));
+		}
+		return rules;
+	}
+
+	private static String[] paths(int count) {
+		String[] paths = new String[count];
+		for (int i = 0; i < count; i++) {
+			paths[i] = "/service" + i + "/items/" + (i * 31) + "/details";
+		}
+		return paths;
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Thread pool used to issue calls to user and event services concurrently.
+ */
+@Configuration
+public class DependencyCallConfig {
+
+	@Bean(destroyMethod = "shutdown")
+	ExecutorService dependencyExecutor(@Value("${booking.dependency.threads:32}") int threads,
+			@Value("${booking.dependency.queue-capacity:1000}") int queueCapacity) {
+		AtomicInteger threadCount = new AtomicInteger();
+		// when saturated the request thread makes the call itself instead of failing
+		return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> {
+					Thread thread = new Thread(runnable, "dependency-call-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+}
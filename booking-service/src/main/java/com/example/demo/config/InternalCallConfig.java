@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+import feign.RequestInterceptor;
+
+/**
+ * Feign configuration for clients calling endpoints reserved to other services
+ * of the application: sends the shared {@code internal.api-key}. Deliberately
+ * not a {@code @Configuration}, so only the clients naming it send the key.
+ */
+public class InternalCallConfig {
+
+	public static final String HEADER = "X-Internal-Key";
+
+	@Bean
+	RequestInterceptor internalKeyInterceptor(@Value("${internal.api-key:}") String key) {
+		return template -> {
+			if (!key.isEmpty()) {
+				template.header(HEADER, key);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.example.demo.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.example.demo.util.ShardContext;
+
+/**
+ * Hands out connections of the shard in {@link ShardContext}. Work done
+ * outside any shard, such as Hibernate's start-up checks, goes to shard 0.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private final List<DataSource> shards;
+
+	public ShardRoutingDataSource(List<DataSource> shards) {
+		this.shards = List.copyOf(shards);
+		Map<Object, Object> targets = new HashMap<>();
+		for (int shard = 0; shard < shards.size(); shard++) {
+			targets.put(shard, shards.get(shard));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(shards.get(0));
+		// a shard that is not configured is a routing bug, not a reason to use shard 0
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return ShardContext.current();
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (DataSource shard : shards) {
+			if (shard instanceof Closeable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import com.example.demo.util.ShardContext;
+
+/**
+ * Hibernate manages the schema of the connection it starts with, which is
+ * shard 0. This applies the same {@code hbm2ddl} action to every other shard,
+ * so all shards hold the same tables and sequences.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+
+	private final int shardCount;
+	private final List<Runnable> dropsOnClose = new CopyOnWriteArrayList<>();
+
+	public ShardSchemaIntegrator(int shardCount) {
+		this.shardCount = shardCount;
+	}
+
+	@Override
+	public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+		for (int shard = 1; shard < shardCount; shard++) {
+			int current = shard;
+			try (ShardContext.Scope scope = ShardContext.enter(shard)) {
+				SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+						sessionFactory.getProperties(), action -> dropsOnClose.add(() -> drop(current, action, sessionFactory)));
+			}
+		}
+	}
+
+	@Override
+	public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+		dropsOnClose.forEach(Runnable::run);
+	}
+
+	private static void drop(int shard, DelayedDropAction action, SessionFactoryImplementor sessionFactory) {
+		try (ShardContext.Scope scope = ShardContext.enter(shard)) {
+			action.perform(sessionFactory.getServiceRegistry());
+		}
+	}
+
+}
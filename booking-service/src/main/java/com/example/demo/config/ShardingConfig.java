@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.example.demo.util.ShardContext;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Splits booking data across the databases listed in
+ * {@code booking.shards.urls}, in shard order. Without that property the plain
+ * auto-configured datasource is used. Sharding replaces the read replica
+ * routing, the two cannot be enabled together.
+ */
+@Configuration
+@ConditionalOnProperty("booking.shards.urls")
+public class ShardingConfig {
+
+	@Bean
+	@Primary
+	ShardRoutingDataSource dataSource(DataSourceProperties properties,
+			@Value("${booking.shards.urls}") List<String> urls,
+			@Value("${booking.shards.username:${spring.datasource.username:}}") String username,
+			@Value("${booking.shards.password:${spring.datasource.password:}}") String password,
+			@Value("${spring.datasource.replica.urls:}") List<String> replicaUrls) {
+		if (!replicaUrls.isEmpty()) {
+			throw new IllegalStateException("booking.shards.urls cannot be combined with spring.datasource.replica.urls");
+		}
+		if (urls.size() > ShardContext.MAX_SHARDS) {
+			throw new IllegalStateException("At most " + ShardContext.MAX_SHARDS + " shards are supported");
+		}
+		List<DataSource> shards = new ArrayList<>();
+		for (String url : urls) {
+			HikariDataSource shard = DataSourceBuilder.create().type(HikariDataSource.class)
+					.driverClassName(properties.determineDriverClassName())
+					.url(url).username(username).password(password).build();
+			shard.setPoolName("shard-" + shards.size());
+			shards.add(shard);
+		}
+		return new ShardRoutingDataSource(shards);
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer shardSchemaCustomizer(@Value("${booking.shards.urls}") List<String> urls) {
+		IntegratorProvider integrators = () -> List.of(new ShardSchemaIntegrator(urls.size()));
+		return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER, integrators);
+	}
+
+}
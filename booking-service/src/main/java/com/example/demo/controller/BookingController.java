@@ -1,43 +1,182 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.dto.BookingPage;
+import com.example.demo.dto.BookingTicket;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.dto.UserBookings;
 import com.example.demo.entity.Booking;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.exception.BookingQueueFullException;
+import com.example.demo.exception.DependencyUnavailableException;
+import com.example.demo.exception.EventNotFoundException;
+import com.example.demo.exception.EventSoldOutException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.exception.WaitlistFullException;
+import com.example.demo.service.BookingQueue;
 import com.example.demo.service.BookingService;
+import com.example.demo.service.OutboxRelay;
+import com.example.demo.util.GatewayIdentity;
+import com.example.demo.util.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
 
 	private BookingService bookingService;
+	private IdempotencyStore idempotencyStore;
+	private ObjectMapper objectMapper;
+	private BookingQueue bookingQueue;
+	private OutboxRelay outboxRelay;
+	private GatewayIdentity gatewayIdentity;
 
-	public BookingController(BookingService bookingService) {
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	public BookingController(BookingService bookingService, IdempotencyStore idempotencyStore,
+			ObjectMapper objectMapper, BookingQueue bookingQueue,
+			OutboxRelay outboxRelay, GatewayIdentity gatewayIdentity) {
 		this.bookingService = bookingService;
+		this.idempotencyStore = idempotencyStore;
+		this.objectMapper = objectMapper;
+		this.bookingQueue = bookingQueue;
+		this.outboxRelay = outboxRelay;
+		this.gatewayIdentity = gatewayIdentity;
 	}
 
 	// create a booking
 	@PostMapping("/user/{userId}/event/{eventId}")
-	public ResponseEntity<String> saveBooking(@PathVariable int userId , @PathVariable int eventId) {
-		String response = bookingService.createBooking(userId,eventId);
+	public ResponseEntity<String> saveBooking(@PathVariable int userId , @PathVariable int eventId,
+			@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey)
+			throws UserNotFoundException, EventNotFoundException, EventSoldOutException, DependencyUnavailableException {
+		String response;
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			response = bookingService.createBooking(userId,eventId);
+		} else {
+			// retries with the same key replay the first response
+			String key = idempotencyKey + ":" + userId + ":" + eventId;
+			response = idempotencyStore.begin(key);
+			if (response == null) {
+				try {
+					response = bookingService.createBooking(userId,eventId);
+				} catch (Exception e) {
+					idempotencyStore.abandon(key);
+					throw e;
+				}
+				idempotencyStore.complete(key, response);
+			}
+		}
 		return ResponseEntity.status(HttpStatus.CREATED).body(response);
 	}
 
+	// queue a booking and answer at once with a ticket to poll
+	@PostMapping("/requests/user/{userId}/event/{eventId}")
+	public ResponseEntity<BookingTicket> queueBooking(@PathVariable int userId, @PathVariable int eventId)
+			throws BookingQueueFullException {
+		BookingTicket ticket = bookingQueue.submit(userId, eventId);
+		return ResponseEntity.accepted().location(URI.create("/bookings/requests/" + ticket.getTicket())).body(ticket);
+	}
+
+	// outcome of a queued booking
+	@GetMapping("/requests/{ticket}")
+	public ResponseEntity<BookingTicket> getQueuedBooking(@PathVariable String ticket) {
+		BookingTicket status = bookingQueue.status(ticket);
+		if (status == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		}
+		return ResponseEntity.ok(status);
+	}
+
+	// register many users to one event, with an outcome per user
+	@PostMapping("/event/{eventId}/bulk")
+	public ResponseEntity<List<BulkBookingResult>> saveBookings(@PathVariable int eventId, @RequestBody List<Integer> userIds)
+			throws EventNotFoundException, DependencyUnavailableException {
+		return ResponseEntity.ok(bookingService.createBookings(eventId, userIds));
+	}
+
+	// join the waitlist of a sold-out event, or book when seats are left; only admins may set a priority,
+	// higher is promoted first
+	@PostMapping("/waitlist/user/{userId}/event/{eventId}")
+	public ResponseEntity<String> joinWaitlist(@PathVariable int userId, @PathVariable int eventId,
+			@RequestParam(defaultValue = "0") int priority,
+			@RequestHeader(value = GatewayIdentity.HEADER, required = false) String identity)
+			throws UserNotFoundException, EventNotFoundException, WaitlistFullException, DependencyUnavailableException {
+		if (priority != 0 && !gatewayIdentity.hasRole(identity, GatewayIdentity.ADMIN)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can set a waitlist priority");
+		}
+		String response = bookingService.joinWaitlist(userId, eventId, priority);
+		return ResponseEntity.status(HttpStatus.CREATED).body(response);
+	}
+
+	// leave the waitlist of an event
+	@DeleteMapping("/waitlist/user/{userId}/event/{eventId}")
+	public ResponseEntity<String> leaveWaitlist(@PathVariable int userId, @PathVariable int eventId) {
+		return ResponseEntity.ok(bookingService.leaveWaitlist(userId, eventId));
+	}
+
+	// waitlist of an event in promotion order
+	@GetMapping("/waitlist/event/{eventId}")
+	public ResponseEntity<List<WaitlistEntry>> getWaitlist(@PathVariable int eventId) {
+		return ResponseEntity.ok(bookingService.getWaitlist(eventId));
+	}
+
 	// get all bookings
 	@GetMapping
 	public ResponseEntity<List<Booking>> getAllBookings() {
 		return ResponseEntity.ok(bookingService.getAll());
 	}
 
+	// get bookings one page at a time, ordered by id
+	@GetMapping("/page")
+	public ResponseEntity<BookingPage> getBookingPage(@RequestParam(defaultValue = "0") int after,
+			@RequestParam(defaultValue = "100") int limit) {
+		return ResponseEntity.ok(bookingService.getPage(after, limit));
+	}
+
+	// stream all bookings as newline-delimited json
+	@GetMapping("/stream")
+	public ResponseEntity<StreamingResponseBody> streamBookings() {
+		StreamingResponseBody body = out -> bookingService.streamAll(booking -> writeLine(out, booking));
+		return ResponseEntity.ok().contentType(NDJSON).body(body);
+	}
+
+	private void writeLine(OutputStream out, Booking booking) {
+		try {
+			out.write(objectMapper.writeValueAsBytes(booking));
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// booking lifecycle events as server-sent events, resuming after Last-Event-ID or starting now
+	@GetMapping(value = "/events/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamBookingEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		return outboxRelay.subscribe(lastEventId);
+	}
+
 	// get a booking by id
 	@GetMapping("/{id}")
 	public ResponseEntity<Booking> getBookingById(@PathVariable int id) {
@@ -48,14 +187,23 @@ public class BookingController {
 		return ResponseEntity.ok(booking);
 	}
 
-	// get bookings for a particular user
+	// get bookings for a particular user, 304 when the caller's ETag is current
 	@GetMapping("/user/{id}")
-	public ResponseEntity<List<Booking>> getBookingByUserId(@PathVariable int id) {
-		List<Booking> bookings = bookingService.getByUserId(id);
-		if (bookings.isEmpty()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+	public ResponseEntity<List<Booking>> getBookingByUserId(@PathVariable int id, WebRequest request) {
+		UserBookings view = bookingService.getUserBookings(id);
+		// Spring leaves * to unsafe methods, but on a read it matches whatever list exists
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch != null && ifNoneMatch.trim().equals("*")) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(view.getEtag()).build();
+		}
+		// weak tags and lists of tags match as If-None-Match allows
+		if (request.checkNotModified(view.getEtag())) {
+			return null;
+		}
+		if (view.getBookings().isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).eTag(view.getEtag()).build();
 		}
-		return ResponseEntity.ok(bookings);
+		return ResponseEntity.ok().eTag(view.getEtag()).body(view.getBookings());
 	}
 
 	// delete booking
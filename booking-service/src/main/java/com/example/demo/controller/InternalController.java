@@ -0,0 +1,41 @@
+package com.example.demo.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.util.EventSnapshotCache;
+import com.example.demo.util.InternalCallerVerifier;
+
+/**
+ * Endpoints for other services. Not routed by the api-gateway, and only served
+ * to callers sending the internal key.
+ */
+@RestController
+@RequestMapping("/internal")
+public class InternalController {
+
+	private EventSnapshotCache eventCache;
+	private InternalCallerVerifier internalCaller;
+
+	public InternalController(EventSnapshotCache eventCache, InternalCallerVerifier internalCaller) {
+		this.eventCache = eventCache;
+		this.internalCaller = internalCaller;
+	}
+
+	// drop the cached copy of an event, called by event-service when it changes
+	@DeleteMapping("/event-cache/{eventId}")
+	public ResponseEntity<Void> evictEvent(@PathVariable int eventId,
+			@RequestHeader(value = InternalCallerVerifier.HEADER, required = false) String key) {
+		if (!internalCaller.verify(key)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		eventCache.invalidate(eventId);
+		return ResponseEntity.noContent().build();
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.example.demo.entity.Booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingPage {
+
+	private List<Booking> items;
+
+	// pass as ?after= to get the next page, null on the last page
+	private Integer nextAfter;
+
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingTicket {
+
+	public enum State {
+		PENDING, BOOKED, ALREADY_BOOKED, USER_NOT_FOUND, SOLD_OUT, EVENT_NOT_FOUND, FAILED
+	}
+
+	private String ticket;
+	private int userId;
+	private int eventId;
+	private State state;
+
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkBookingResult {
+
+	public enum Status {
+		BOOKED, ALREADY_BOOKED, USER_NOT_FOUND, SOLD_OUT
+	}
+
+	private int userId;
+	private Status status;
+
+}
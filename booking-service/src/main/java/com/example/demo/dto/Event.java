@@ -26,4 +26,7 @@ public class Event {
 
 	private String description;
 
+	// null when the event has no seat limit
+	private Integer capacity;
+
 }
\ No newline at end of file
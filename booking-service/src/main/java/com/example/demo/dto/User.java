@@ -12,6 +12,5 @@ public class User {
 	private int id;
 	private String name;
 	private String email;
-	private String password;
 
 }
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.example.demo.entity.Booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserBookings {
+
+	private List<Booking> bookings;
+
+	private String etag;
+
+}
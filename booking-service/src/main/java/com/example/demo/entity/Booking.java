@@ -2,25 +2,38 @@ package com.example.demo.entity;
 
 import java.util.Date;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import com.example.demo.util.ShardedSequenceGenerator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
 @Data
-@Table(name = "bookings")
+// a user holds at most one booking per event; the unique (user_id, event_id) index also serves user_id lookups
+@Table(name = "bookings",
+		uniqueConstraints = @UniqueConstraint(name = "uk_bookings_user_event", columnNames = { "user_id", "event_id" }),
+		indexes = @Index(name = "idx_bookings_event", columnList = "event_id"))
 @AllArgsConstructor
 @NoArgsConstructor
 public class Booking {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	// pooled ids let Hibernate batch inserts, which IDENTITY rules out; the id also names the row's shard
+	@GeneratedValue(generator = "booking_seq")
+	@GenericGenerator(name = "booking_seq", type = ShardedSequenceGenerator.class, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "bookings_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50") })
 	private int id;
 	private int userId;
 	private String userName;
@@ -0,0 +1,24 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Seats left for an event. Always changed through conditional updates in
+ * {@code EventInventoryRepository}, never read-modify-written.
+ */
+@Entity
+@Data
+@Table(name = "event_inventory")
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventInventory {
+	@Id
+	private int eventId;
+	private int capacity;
+	private int remaining;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The shard an event's booking data lives on. Written once, when the event is
+ * first routed, and never changed, so adding shards or pins cannot move an
+ * event away from its rows. Only shard 0 holds these rows.
+ */
+@Entity
+@Data
+@Table(name = "event_shards")
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventShard {
+	@Id
+	private int eventId;
+	private int shard;
+}
@@ -0,0 +1,27 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The highest booking id that existed when the service first started sharded.
+ * Ids up to it were issued by the IDENTITY column or the unsharded sequence
+ * and do not name a shard. Written once and never changed. Only shard 0 holds
+ * this row.
+ */
+@Entity
+@Data
+@Table(name = "legacy_booking_ids")
+@AllArgsConstructor
+@NoArgsConstructor
+public class LegacyBookingIds {
+	public static final int ID = 0;
+
+	@Id
+	private int id;
+	private int maxId;
+}
@@ -0,0 +1,59 @@
+package com.example.demo.entity;
+
+import java.util.Date;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import com.example.demo.util.ShardedSequenceGenerator;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A booking lifecycle change, written in the same transaction as the change
+ * itself and published afterwards by {@code OutboxRelay}. Ids come from pooled
+ * sequences and may commit out of order, so publishing stamps each record with
+ * a position, increasing within a shard in the order records were published,
+ * and readers resume from the last position they saw on each shard.
+ */
+@Entity
+@Data
+@Table(name = "booking_outbox", indexes = {
+		@Index(name = "idx_outbox_published", columnList = "published, id"),
+		@Index(name = "idx_outbox_position", columnList = "position") })
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+
+	public enum Type {
+		BOOKING_CREATED, BOOKING_CANCELLED,
+		// every booking of the event was removed; bookingId and userId are 0
+		EVENT_BOOKINGS_CANCELLED
+	}
+
+	@Id
+	@GeneratedValue(generator = "booking_outbox_seq")
+	@GenericGenerator(name = "booking_outbox_seq", type = ShardedSequenceGenerator.class, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "booking_outbox_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50") })
+	private long id;
+	@Enumerated(EnumType.STRING)
+	private Type type;
+	private int bookingId;
+	private int userId;
+	private int eventId;
+	private Date occurredAt;
+	private boolean published;
+	// null until published
+	private Long position;
+}
@@ -0,0 +1,29 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row that decides which booking-service instance relays a
+ * shard's outbox, and the last position it handed out. An instance holds the
+ * lease until {@code expiresAt} and renews it on every batch; once it lapses
+ * any other instance may take it over.
+ */
+@Entity
+@Data
+@Table(name = "booking_outbox_lease")
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxLease {
+	public static final int ID = 0;
+
+	@Id
+	private int id;
+	private String owner;
+	private long expiresAt;
+	private long position;
+}
@@ -0,0 +1,41 @@
+package com.example.demo.entity;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import com.example.demo.util.ShardedSequenceGenerator;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user waiting for a seat at a sold-out event. Higher priority goes first,
+ * then the earlier id.
+ */
+@Entity
+@Data
+@Table(name = "waitlist",
+		uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_event_user", columnNames = { "event_id", "user_id" }),
+		indexes = @Index(name = "idx_waitlist_order", columnList = "event_id, priority, id"))
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntry {
+	@Id
+	@GeneratedValue(generator = "waitlist_seq")
+	@GenericGenerator(name = "waitlist_seq", type = ShardedSequenceGenerator.class, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "waitlist_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50") })
+	private int id;
+	private int eventId;
+	private int userId;
+	private String userName;
+	private int priority;
+}
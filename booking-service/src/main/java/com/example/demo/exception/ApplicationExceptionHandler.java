@@ -0,0 +1,50 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApplicationExceptionHandler {
+
+	@ExceptionHandler(UserNotFoundException.class)
+	public ResponseEntity<String> handleUserNotFoundException(UserNotFoundException ex) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+	}
+
+	@ExceptionHandler(EventNotFoundException.class)
+	public ResponseEntity<String> handleEventNotFoundException(EventNotFoundException ex) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+	}
+
+	@ExceptionHandler(EventSoldOutException.class)
+	public ResponseEntity<String> handleEventSoldOutException(EventSoldOutException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+	}
+
+	// not a sell-out: the user could not even be queued
+	@ExceptionHandler(WaitlistFullException.class)
+	public ResponseEntity<String> handleWaitlistFullException(WaitlistFullException ex) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+	}
+
+	@ExceptionHandler(DependencyUnavailableException.class)
+	public ResponseEntity<String> handleDependencyUnavailableException(DependencyUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+	}
+
+	// the first attempt with the same idempotency key is still running
+	@ExceptionHandler(RequestInProgressException.class)
+	public ResponseEntity<String> handleRequestInProgressException(RequestInProgressException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body(ex.getMessage());
+	}
+
+	@ExceptionHandler(BookingQueueFullException.class)
+	public ResponseEntity<String> handleBookingQueueFullException(BookingQueueFullException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DependencyUnavailableException extends Exception {
+
+	public DependencyUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class EventNotFoundException extends Exception {
+
+	public EventNotFoundException(String message) {
+		super(message);
+	}
+
+}
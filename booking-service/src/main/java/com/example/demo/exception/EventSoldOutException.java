@@ -0,0 +1,13 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class EventSoldOutException extends Exception {
+
+	public EventSoldOutException(String message) {
+		super(message);
+	}
+
+}
@@ -1,16 +1,26 @@
 package com.example.demo.feign;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import com.example.demo.config.InternalCallConfig;
 import com.example.demo.dto.User;
 
-@FeignClient("SECURITY-SERVICE")
+@FeignClient(name = "SECURITY-SERVICE", configuration = InternalCallConfig.class)
 public interface UserClient {
 	
-	@GetMapping("auth/get/{id}")
+	// id, name and email only; 404 for an unknown id. Internal endpoint, needs internal.api-key
+	@GetMapping("internal/users/{id}")
 	public ResponseEntity<User> getUserById(@PathVariable int id);
 
+	// id, name and email only; unknown ids are left out of the result. Internal endpoint, needs internal.api-key
+	@GetMapping("internal/users")
+	public ResponseEntity<List<User>> getUsersByIds(@RequestParam("ids") Collection<Integer> ids);
+
 }
@@ -1,23 +1,65 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.example.demo.entity.Booking;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 public interface BookingRepository extends JpaRepository<Booking, Integer> {
 
 	List<Booking> getByUserId(int id);
 
-	void deleteByEventId(int id);
+	// keyset page: seeks past the last id seen instead of counting an offset
+	List<Booking> findByIdGreaterThanOrderByIdAsc(int after, Limit limit);
+
+	// rows come from the driver in fetch-size batches; must be consumed inside a transaction
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("SELECT b FROM Booking b ORDER BY b.id")
+	Stream<Booking> streamAll();
+
+	Optional<Booking> findByUserIdAndEventId(int userId, int eventId);
+
+	// cancellations lock the row before touching the waitlist, in the order a purge of the user does
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<Booking> findLockedByUserIdAndEventId(int userId, int eventId);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<Booking> findLockedById(int id);
+
+	@Query("SELECT DISTINCT b.eventId FROM Booking b")
+	List<Integer> findEventIds();
+
+	@Query("SELECT COALESCE(MAX(b.id), 0) FROM Booking b")
+	int findMaxId();
+
+	@Query("SELECT b.userId FROM Booking b WHERE b.eventId = :eventId AND b.userId IN :userIds")
+	List<Integer> findBookedUserIds(@Param("eventId") int eventId, @Param("userIds") Collection<Integer> userIds);
+
+	// set-based deletes, limited so that each transaction holds its locks briefly
+	@Modifying
+	@Query(value = "DELETE FROM bookings WHERE event_id = :eventId LIMIT :limit", nativeQuery = true)
+	int deleteChunkByEventId(@Param("eventId") int eventId, @Param("limit") int limit);
 
-	void deleteByUserId(int userId);
+	// locks the rows until the transaction ends, so a concurrent cancellation of one of them waits and then misses it
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<Booking> findByUserIdOrderByIdAsc(int userId, Limit limit);
 
 	@Modifying
-	@Query("DELETE FROM Booking b WHERE b.userId = :userId AND b.eventId = :eventId")
-	void deleteByUserIdAndEventId(@Param("userId") int userId, @Param("eventId") int eventId);
+	@Query("DELETE FROM Booking b WHERE b.id IN :ids")
+	int deleteByIdIn(@Param("ids") Collection<Integer> ids);
 }
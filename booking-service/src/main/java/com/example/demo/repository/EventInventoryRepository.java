@@ -0,0 +1,37 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.entity.EventInventory;
+
+public interface EventInventoryRepository extends JpaRepository<EventInventory, Integer> {
+
+	@Query("SELECT i.remaining FROM EventInventory i WHERE i.eventId = :eventId")
+	Optional<Integer> findRemaining(@Param("eventId") int eventId);
+
+	// a plain insert: save would merge into a row another instance created meanwhile and reset its seats
+	@Modifying
+	@Query(value = "INSERT INTO event_inventory (event_id, capacity, remaining) VALUES (:eventId, :capacity, :capacity)",
+			nativeQuery = true)
+	int create(@Param("eventId") int eventId, @Param("capacity") int capacity);
+
+	@Query("SELECT i.eventId FROM EventInventory i")
+	List<Integer> findEventIds();
+
+	// returns 0 when fewer than the requested seats are left
+	@Modifying
+	@Query("UPDATE EventInventory i SET i.remaining = i.remaining - :seats WHERE i.eventId = :eventId AND i.remaining >= :seats")
+	int reserve(@Param("eventId") int eventId, @Param("seats") int seats);
+
+	// capped at capacity, so releasing more than was sold cannot create seats
+	@Modifying
+	@Query("UPDATE EventInventory i SET i.remaining = CASE WHEN i.remaining + :seats > i.capacity THEN i.capacity "
+			+ "ELSE i.remaining + :seats END WHERE i.eventId = :eventId")
+	int release(@Param("eventId") int eventId, @Param("seats") int seats);
+}
@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entity.EventShard;
+
+public interface EventShardRepository extends JpaRepository<EventShard, Integer> {
+
+	// a plain insert: save would merge into a placement another instance recorded meanwhile and move the event
+	@Transactional
+	@Modifying
+	@Query(value = "INSERT INTO event_shards (event_id, shard) VALUES (:eventId, :shard)", nativeQuery = true)
+	int create(@Param("eventId") int eventId, @Param("shard") int shard);
+}
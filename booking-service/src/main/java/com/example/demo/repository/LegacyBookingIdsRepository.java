@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entity.LegacyBookingIds;
+
+public interface LegacyBookingIdsRepository extends JpaRepository<LegacyBookingIds, Integer> {
+
+	// a plain insert, so an instance racing to record the range fails instead of overwriting it
+	@Transactional
+	@Modifying
+	@Query(value = "INSERT INTO legacy_booking_ids (id, max_id) VALUES (0, :maxId)", nativeQuery = true)
+	int create(@Param("maxId") int maxId);
+}
@@ -0,0 +1,32 @@
+package com.example.demo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.entity.OutboxLease;
+
+import jakarta.persistence.LockModeType;
+
+public interface OutboxLeaseRepository extends JpaRepository<OutboxLease, Integer> {
+
+	// takes the lease when it is free or already ours; 0 when another instance holds it
+	@Modifying
+	@Query("UPDATE OutboxLease l SET l.owner = :owner, l.expiresAt = :until "
+			+ "WHERE l.id = 0 AND (l.owner = :owner OR l.expiresAt < :now)")
+	int claim(@Param("owner") String owner, @Param("now") long now, @Param("until") long until);
+
+	// a plain insert, so an instance racing to create the row fails instead of overwriting it
+	@Modifying
+	@Query(value = "INSERT INTO booking_outbox_lease (id, owner, expires_at, position) VALUES (0, :owner, :until, :position)",
+			nativeQuery = true)
+	int create(@Param("owner") String owner, @Param("until") long until, @Param("position") long position);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT l FROM OutboxLease l WHERE l.id = 0")
+	Optional<OutboxLease> lock();
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.entity.OutboxEvent;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+	List<OutboxEvent> findByPublishedFalseOrderByIdAsc(Limit limit);
+
+	List<OutboxEvent> findByPositionGreaterThanOrderByPositionAsc(long after, Limit limit);
+
+	@Query("SELECT COALESCE(MAX(o.position), 0) FROM OutboxEvent o")
+	long findLastPosition();
+
+	@Modifying
+	@Query(value = "DELETE FROM booking_outbox WHERE published = true AND occurred_at < :cutoff LIMIT :limit", nativeQuery = true)
+	int deletePublishedBefore(@Param("cutoff") Date cutoff, @Param("limit") int limit);
+}
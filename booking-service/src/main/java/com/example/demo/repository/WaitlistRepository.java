@@ -0,0 +1,31 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.entity.WaitlistEntry;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Integer> {
+
+	List<WaitlistEntry> findByEventIdOrderByPriorityDescIdAsc(int eventId, Limit limit);
+
+	boolean existsByEventIdAndUserId(int eventId, int userId);
+
+	// claims an entry for promotion; 0 when another transaction got it first
+	@Modifying
+	@Query("DELETE FROM WaitlistEntry w WHERE w.id = :id")
+	int claim(@Param("id") int id);
+
+	@Modifying
+	@Query("DELETE FROM WaitlistEntry w WHERE w.eventId = :eventId AND w.userId = :userId")
+	int deleteByEventIdAndUserId(@Param("eventId") int eventId, @Param("userId") int userId);
+
+	@Modifying
+	@Query("DELETE FROM WaitlistEntry w WHERE w.eventId = :eventId")
+	int deleteAllByEventId(@Param("eventId") int eventId);
+}
@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.OutboxEvent.Type;
+import com.example.demo.repository.OutboxRepository;
+
+/**
+ * Records booking changes in the outbox. Must be called inside the
+ * transaction that makes the change, so the record exists exactly when the
+ * change does. As every change passes through here, it also drops the cached
+ * booking lists of the users involved.
+ */
+@Component
+public class BookingOutbox {
+
+	private OutboxRepository repository;
+	private UserBookingsView userBookings;
+
+	public BookingOutbox(OutboxRepository repository, UserBookingsView userBookings) {
+		this.repository = repository;
+		this.userBookings = userBookings;
+	}
+
+	public void created(Booking booking) {
+		repository.save(record(Type.BOOKING_CREATED, booking));
+		userBookings.changed(booking.getUserId());
+	}
+
+	public void created(List<Booking> bookings) {
+		repository.saveAll(bookings.stream().map(booking -> record(Type.BOOKING_CREATED, booking)).toList());
+		bookings.forEach(booking -> userBookings.changed(booking.getUserId()));
+	}
+
+	public void cancelled(Booking booking) {
+		repository.save(record(Type.BOOKING_CANCELLED, booking));
+		userBookings.changed(booking.getUserId());
+	}
+
+	public void eventCancelled(int eventId) {
+		repository.save(new OutboxEvent(0, Type.EVENT_BOOKINGS_CANCELLED, 0, 0, eventId, new Date(), false, null));
+		userBookings.changedAll();
+	}
+
+	private static OutboxEvent record(Type type, Booking booking) {
+		return new OutboxEvent(0, type, booking.getId(), booking.getUserId(), booking.getEventId(), new Date(), false, null);
+	}
+
+}
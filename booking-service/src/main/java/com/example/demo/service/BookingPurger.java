@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.util.ShardContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Removes all bookings of an event or a user with set-based deletes. Rows go
+ * in chunks, each in its own short transaction, so a large event neither
+ * loads its bookings into memory nor holds row locks for the whole cascade.
+ * Freed seats go to the waitlist or back to the inventory in the same
+ * transaction as the rows they belonged to. An event's rows are all on its
+ * shard; a user's are on every shard, each purged on its own.
+ */
+@Component
+public class BookingPurger {
+
+	private BookingRepository repository;
+	private SeatInventory seatInventory;
+	private Waitlist waitlist;
+	private BookingOutbox outbox;
+	private BookingShards shards;
+	private TransactionTemplate transactionTemplate;
+	private MeterRegistry registry;
+	private int chunkSize;
+
+	public BookingPurger(BookingRepository repository, SeatInventory seatInventory, Waitlist waitlist, BookingOutbox outbox,
+			BookingShards shards, TransactionTemplate transactionTemplate, MeterRegistry registry,
+			@Value("${booking.delete.chunk-size:1000}") int chunkSize) {
+		this.repository = repository;
+		this.seatInventory = seatInventory;
+		this.waitlist = waitlist;
+		this.outbox = outbox;
+		this.shards = shards;
+		this.transactionTemplate = transactionTemplate;
+		this.registry = registry;
+		this.chunkSize = chunkSize;
+	}
+
+	public int deleteByEventId(int eventId) {
+		Timer.Sample sample = Timer.start(registry);
+		int total = 0;
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			int deleted;
+			do {
+				deleted = transactionTemplate.execute(status -> repository.deleteChunkByEventId(eventId, chunkSize));
+				total += deleted;
+			} while (deleted == chunkSize);
+			transactionTemplate.executeWithoutResult(status -> {
+				seatInventory.remove(eventId);
+				waitlist.removeEvent(eventId);
+				// one record for the whole event rather than one per deleted row
+				outbox.eventCancelled(eventId);
+			});
+		}
+		record(sample, "event", total);
+		return total;
+	}
+
+	public int deleteByUserId(int userId) {
+		Timer.Sample sample = Timer.start(registry);
+		AtomicInteger total = new AtomicInteger();
+		shards.forEachShard(shard -> {
+			int deleted;
+			do {
+				deleted = transactionTemplate.execute(status -> {
+					// read under lock in the deleting transaction: a booking cancelled meanwhile is
+					// either gone already or waits for this commit and finds nothing, never freed twice
+					List<Booking> chunk = repository.findByUserIdOrderByIdAsc(userId, Limit.of(chunkSize));
+					if (chunk.isEmpty()) {
+						return 0;
+					}
+					int rows = repository.deleteByIdIn(chunk.stream().map(Booking::getId).toList());
+					chunk.forEach(outbox::cancelled);
+					chunk.forEach(waitlist::seatFreed);
+					return rows;
+				});
+				total.addAndGet(deleted);
+			} while (deleted == chunkSize);
+		});
+		record(sample, "user", total.get());
+		return total.get();
+	}
+
+	private void record(Timer.Sample sample, String scope, int rows) {
+		sample.stop(registry.timer("booking.bulk.delete", "scope", scope));
+		registry.counter("booking.deleted.rows", "scope", scope).increment(rows);
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.BookingTicket;
+import com.example.demo.dto.BookingTicket.State;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.exception.BookingQueueFullException;
+import com.example.demo.exception.EventNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Accepts booking requests without holding the caller's thread. Requests wait
+ * in a bounded queue; workers take them off in batches, group them by event and
+ * book each group through the bulk path, so a flash sale costs one event lookup,
+ * one user lookup and one batched insert per group instead of per request.
+ * Callers get a ticket and poll it for the outcome. Finished tickets are kept
+ * for a bounded time; they are also queued in the order they finished, which
+ * with one TTL for all is the order they expire in, so purging only looks at
+ * the tickets that are due.
+ */
+@Component
+public class BookingQueue implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(BookingQueue.class);
+
+	private final Map<String, Entry> tickets = new ConcurrentHashMap<>();
+	private final Queue<Entry> finished = new ConcurrentLinkedQueue<>();
+	private BlockingQueue<Entry> queue;
+	private ExecutorService workers;
+	private BookingService bookingService;
+	private int batchSize;
+	private long ticketTtlMillis;
+
+	private Counter accepted;
+	private Counter rejected;
+	private Counter drained;
+	private Timer batches;
+
+	public BookingQueue(BookingService bookingService, MeterRegistry registry,
+			@Value("${booking.queue.capacity:10000}") int capacity,
+			@Value("${booking.queue.workers:4}") int workerCount,
+			@Value("${booking.queue.batch-size:200}") int batchSize,
+			@Value("${booking.queue.ticket-ttl:10m}") Duration ticketTtl) {
+		this.bookingService = bookingService;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.ticketTtlMillis = ticketTtl.toMillis();
+
+		this.accepted = Counter.builder("booking.queue.accepted").register(registry);
+		this.rejected = Counter.builder("booking.queue.rejected").register(registry);
+		this.drained = Counter.builder("booking.queue.drained").register(registry);
+		this.batches = Timer.builder("booking.queue.batch").register(registry);
+		Gauge.builder("booking.queue.depth", queue, BlockingQueue::size).register(registry);
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+			Thread thread = new Thread(runnable, "booking-queue-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workerCount; i++) {
+			workers.execute(this::drainLoop);
+		}
+	}
+
+	public BookingTicket submit(int userId, int eventId) throws BookingQueueFullException {
+		Entry entry = new Entry(UUID.randomUUID().toString(), userId, eventId);
+		tickets.put(entry.ticket, entry);
+		if (!queue.offer(entry)) {
+			tickets.remove(entry.ticket);
+			rejected.increment();
+			throw new BookingQueueFullException("Too many pending bookings, please retry shortly");
+		}
+		accepted.increment();
+		return entry.toTicket();
+	}
+
+	public BookingTicket status(String ticket) {
+		Entry entry = tickets.get(ticket);
+		return entry == null ? null : entry.toTicket();
+	}
+
+	private void drainLoop() {
+		List<Entry> batch = new ArrayList<>(batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			queue.drainTo(batch, batchSize - 1);
+			batches.record(() -> process(batch));
+			drained.increment(batch.size());
+			batch.clear();
+			purgeExpiredTickets();
+		}
+	}
+
+	private void process(List<Entry> batch) {
+		Map<Integer, List<Entry>> byEvent = new LinkedHashMap<>();
+		for (Entry entry : batch) {
+			byEvent.computeIfAbsent(entry.eventId, id -> new ArrayList<>()).add(entry);
+		}
+		byEvent.forEach(this::book);
+	}
+
+	private void book(int eventId, List<Entry> entries) {
+		try {
+			List<BulkBookingResult> results = bookingService.createBookings(eventId,
+					entries.stream().map(entry -> entry.userId).toList());
+			Map<Integer, State> outcomes = new LinkedHashMap<>();
+			for (BulkBookingResult result : results) {
+				outcomes.put(result.getUserId(), State.valueOf(result.getStatus().name()));
+			}
+			entries.forEach(entry -> finish(entry, outcomes.getOrDefault(entry.userId, State.FAILED)));
+		} catch (EventNotFoundException e) {
+			entries.forEach(entry -> finish(entry, State.EVENT_NOT_FOUND));
+		} catch (Exception e) {
+			logger.warn("Queued bookings for event {} failed: {}", eventId, e.getMessage());
+			entries.forEach(entry -> finish(entry, State.FAILED));
+		}
+	}
+
+	private void finish(Entry entry, State outcome) {
+		entry.finish(outcome, ticketTtlMillis);
+		finished.add(entry);
+	}
+
+	private void purgeExpiredTickets() {
+		long now = System.currentTimeMillis();
+		Entry oldest;
+		while ((oldest = finished.peek()) != null && oldest.expiresAt <= now) {
+			// another worker may be purging too, only the one that dequeues it removes the ticket
+			if (finished.remove(oldest)) {
+				tickets.remove(oldest.ticket, oldest);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		workers.shutdownNow();
+	}
+
+	private static final class Entry {
+		private final String ticket;
+		private final int userId;
+		private final int eventId;
+		private volatile State state = State.PENDING;
+		// 0 while pending
+		private volatile long expiresAt;
+
+		private Entry(String ticket, int userId, int eventId) {
+			this.ticket = ticket;
+			this.userId = userId;
+			this.eventId = eventId;
+		}
+
+		private void finish(State outcome, long ttlMillis) {
+			expiresAt = System.currentTimeMillis() + ttlMillis;
+			state = outcome;
+		}
+
+		private BookingTicket toTicket() {
+			return new BookingTicket(ticket, userId, eventId, state);
+		}
+	}
+
+}
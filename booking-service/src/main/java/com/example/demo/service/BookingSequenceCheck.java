@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import javax.sql.DataSource;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.util.ShardContext;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Moves {@code bookings_seq} past the ids already in {@code bookings} at
+ * start-up, on every shard. Booking ids used to come from an IDENTITY column,
+ * and a sequence created next to those rows would start at 1 and hand out ids
+ * that are taken. Once the sequence is ahead this does nothing.
+ *
+ * Dialects with sequences get {@code ALTER SEQUENCE ... RESTART}; others, such
+ * as MySQL, back the sequence with a one-row table whose {@code next_val} is
+ * raised.
+ */
+@Component
+public class BookingSequenceCheck implements InitializingBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(BookingSequenceCheck.class);
+
+	static final String SEQUENCE = "bookings_seq";
+	// matches the increment of the booking id generator
+	static final int ALLOCATION = 50;
+
+	private final JdbcTemplate jdbc;
+	private final Dialect dialect;
+	private final BookingShards shards;
+
+	// the factory is taken so that this runs after Hibernate has created the sequence
+	public BookingSequenceCheck(DataSource dataSource, EntityManagerFactory entityManagerFactory, BookingShards shards) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		this.shards = shards;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		shards.forEachShard(shard -> {
+			long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM bookings", Long.class);
+			// sharded ids are the sequence value times MAX_SHARDS plus the shard
+			long lowest = ShardContext.current() == null ? maxId + 1 : maxId / ShardContext.MAX_SHARDS + 1;
+			// a pooled draw of n hands out the block ending at n
+			long next = lowest + ALLOCATION;
+			if (dialect.getSequenceSupport().supportsSequences()) {
+				long drawn = jdbc.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE),
+						Long.class);
+				if (drawn < next) {
+					jdbc.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + next);
+					logger.info("Restarted {} on shard {} at {}, past booking id {}", SEQUENCE, shard, next, maxId);
+				}
+			} else if (jdbc.update("UPDATE " + SEQUENCE + " SET next_val = ? WHERE next_val < ?", next, next) > 0) {
+				logger.info("Raised {} on shard {} to {}, past booking id {}", SEQUENCE, shard, next, maxId);
+			}
+		});
+	}
+
+}
@@ -1,23 +1,50 @@
 package com.example.demo.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.example.demo.dto.BookingPage;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.dto.UserBookings;
 import com.example.demo.entity.Booking;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.exception.DependencyUnavailableException;
+import com.example.demo.exception.EventNotFoundException;
+import com.example.demo.exception.EventSoldOutException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.exception.WaitlistFullException;
 
 public interface BookingService {
-	String createBooking(Integer userId,Integer eventId);
+	String createBooking(Integer userId,Integer eventId)
+			throws UserNotFoundException, EventNotFoundException, EventSoldOutException, DependencyUnavailableException;
+
+	List<BulkBookingResult> createBookings(int eventId, List<Integer> userIds)
+			throws EventNotFoundException, DependencyUnavailableException;
 
 	List<Booking> getAll();
 
+	BookingPage getPage(int after, int limit);
+
+	void streamAll(Consumer<Booking> consumer);
+
 	Booking getById(Integer id);
 
 	void delete(Integer id);
 
 	List<Booking> getByUserId(int id);
 
+	UserBookings getUserBookings(int userId);
+
 	void deleteByEventId(int eventId);
 
 	void deleteByUserId(int userId);
 
 	String deleteByUserIdAndEventId(int userId, int eventId);
-}
\ No newline at end of file
+
+	String joinWaitlist(int userId, int eventId, int priority)
+			throws UserNotFoundException, EventNotFoundException, WaitlistFullException, DependencyUnavailableException;
+
+	String leaveWaitlist(int userId, int eventId);
+
+	List<WaitlistEntry> getWaitlist(int eventId);
+}
@@ -1,74 +1,188 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.demo.dto.BookingPage;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.dto.UserBookings;
+import com.example.demo.dto.BulkBookingResult.Status;
 import com.example.demo.dto.Event;
 import com.example.demo.dto.User;
 import com.example.demo.entity.Booking;
-import com.example.demo.feign.EventClient;
-import com.example.demo.feign.UserClient;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.exception.DependencyUnavailableException;
+import com.example.demo.exception.EventNotFoundException;
+import com.example.demo.exception.EventSoldOutException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.exception.WaitlistFullException;
 import com.example.demo.repository.BookingRepository;
+import com.example.demo.util.ShardContext;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
 
 @Service
 public class BookingServiceImpl implements BookingService {
 
 	private BookingRepository repository;
-	private EventClient eventClient;
-	private UserClient userClient;
+	private DependencyLookups lookups;
+	private SeatInventory seatInventory;
+	private TransactionTemplate transactionTemplate;
+	private BookingPurger bookingPurger;
+	private EntityManager entityManager;
+	private Waitlist waitlist;
+	private BookingOutbox outbox;
+	private UserBookingsView userBookings;
+	private BookingShards shards;
+	private TransactionTemplate readOnlyTransaction;
 
-	public BookingServiceImpl(BookingRepository repository,EventClient eventClient,UserClient userClient) {
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	public BookingServiceImpl(BookingRepository repository,DependencyLookups lookups,SeatInventory seatInventory,
+			TransactionTemplate transactionTemplate,BookingPurger bookingPurger,EntityManager entityManager,
+			Waitlist waitlist,BookingOutbox outbox,UserBookingsView userBookings,BookingShards shards) {
 		this.repository = repository;
-		this.eventClient=eventClient;
-		this.userClient=userClient;
+		this.lookups=lookups;
+		this.seatInventory=seatInventory;
+		this.transactionTemplate=transactionTemplate;
+		this.bookingPurger=bookingPurger;
+		this.entityManager=entityManager;
+		this.waitlist=waitlist;
+		this.outbox=outbox;
+		this.userBookings=userBookings;
+		this.shards=shards;
+		this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		this.readOnlyTransaction.setReadOnly(true);
 	}
 
+	// bookings of all events span every shard, so these reads ask each shard and merge by id
 	@Override
 	public List<Booking> getAll() {
-		return repository.findAll();
+		return shards.collect(() -> readOnlyTransaction.execute(status -> repository.findAll()), BookingShards.BY_ID);
+	}
+
+	@Override
+	public BookingPage getPage(int after, int limit) {
+		int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<Booking> items = shards.collect(() -> readOnlyTransaction.execute(
+				status -> repository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size))), BookingShards.BY_ID);
+		// each shard gave its first rows past the cursor, the smallest of all of them form the page
+		if (items.size() > size) {
+			items = List.copyOf(items.subList(0, size));
+		}
+		Integer nextAfter = items.size() < size ? null : items.get(items.size() - 1).getId();
+		return new BookingPage(items, nextAfter);
+	}
+
+	// one shard after the other, each in id order
+	@Override
+	public void streamAll(Consumer<Booking> consumer) {
+		shards.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+			try (Stream<Booking> bookings = repository.streamAll()) {
+				bookings.forEach(booking -> {
+					consumer.accept(booking);
+					// keeps the persistence context from growing with the table
+					entityManager.detach(booking);
+				});
+			}
+		}));
 	}
 
 	@Override
 	public Booking getById(Integer id) {
-		return repository.findById(id).orElse(null);
+		try (ShardContext.Scope scope = shards.forBooking(id)) {
+			return readOnlyTransaction.execute(status -> repository.findById(id).orElse(null));
+		}
 	}
 
 	@Override
 	public void delete(Integer id) {
-		repository.deleteById(id);
+		try (ShardContext.Scope scope = shards.forBooking(id)) {
+			transactionTemplate.executeWithoutResult(status -> repository.findLockedById(id).ifPresent(booking -> {
+				repository.delete(booking);
+				outbox.cancelled(booking);
+				waitlist.seatFreed(booking);
+			}));
+		}
 	}
 
 	@Override
 	public List<Booking> getByUserId(int id) {
-		return repository.getByUserId(id);
+		return shards.collect(() -> readOnlyTransaction.execute(status -> repository.getByUserId(id)),
+				BookingShards.BY_ID);
+	}
+
+	@Override
+	public UserBookings getUserBookings(int userId) {
+		return userBookings.get(userId);
 	}
 
 	@Override
-	@Transactional
 	public void deleteByEventId(int eventId) {
-		repository.deleteByEventId(eventId);
+		bookingPurger.deleteByEventId(eventId);
 	}
 
 	@Override
-	@Transactional
 	public void deleteByUserId(int userId) {
-		repository.deleteByUserId(userId);
+		bookingPurger.deleteByUserId(userId);
 	}
 
 	@Override
-	@Transactional
 	public String deleteByUserIdAndEventId(int userId, int eventId) {
-		repository.deleteByUserIdAndEventId(userId, eventId);
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			// locked, so a purge of the user running meanwhile waits for this commit and then misses the row
+			transactionTemplate.executeWithoutResult(status -> repository.findLockedByUserIdAndEventId(userId, eventId)
+					.ifPresent(booking -> {
+						repository.delete(booking);
+						outbox.cancelled(booking);
+						// the next waitlisted user gets the seat in this same transaction
+						waitlist.seatFreed(booking);
+					}));
+		}
 		return "Booking deleted successfully";
 	}
 
 	@Override
-	public String createBooking(Integer userId, Integer eventId) {
-		User user = userClient.getUserById(userId).getBody();
-		Event event = eventClient.getEventById(eventId).getBody();
+	public String createBooking(Integer userId, Integer eventId)
+			throws UserNotFoundException, EventNotFoundException, EventSoldOutException, DependencyUnavailableException {
+		// the event's shard holds the booking together with its seats and outbox record
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			return book(userId, eventId);
+		}
+	}
+
+	private String book(int userId, int eventId)
+			throws UserNotFoundException, EventNotFoundException, EventSoldOutException, DependencyUnavailableException {
+		// a repeated request is answered from the existing row without calling other services
+		Booking existing = repository.findByUserIdAndEventId(userId, eventId).orElse(null);
+		if (existing != null) {
+			return registeredMessage(existing);
+		}
+		// both lookups are in flight together, so latency is the slower hop rather than the sum
+		CompletableFuture<User> userLookup = lookups.user(userId);
+		CompletableFuture<Event> eventLookup = lookups.event(eventId);
+		User user = lookups.awaitUser(userLookup, userId);
+		Event event = lookups.awaitEvent(eventLookup, eventId);
+		Booking saved = reserveAndInsert(user, event);
+        if (saved == null) {
+        	throw new EventSoldOutException("Event " + event.getName() + " is sold out");
+        }
+        return registeredMessage(saved);
+	}
+
+	// null when the event is sold out
+	private Booking reserveAndInsert(User user, Event event) {
 		Booking booking = new Booking();
         booking.setUserId(user.getId());
         booking.setUserName(user.getName());
@@ -77,7 +191,126 @@ public class BookingServiceImpl implements BookingService {
         booking.setDate(event.getDate());
         booking.setLocation(event.getLocation());
         booking.setVenue(event.getVenue());
-        repository.save(booking);
-        return "User " + user.getName() + " registered to event " + event.getName() + " successfully";
+        // the seat and the booking commit together, a failed insert hands the seat back
+        seatInventory.prepare(event);
+        try {
+        	return transactionTemplate.execute(status -> {
+        		if (!seatInventory.reserve(event, 1)) {
+        			return null;
+        		}
+        		Booking inserted = repository.saveAndFlush(booking);
+        		outbox.created(inserted);
+        		return inserted;
+        	});
+        } catch (DataIntegrityViolationException e) {
+        	// a concurrent request for the same user and event won the unique index
+        	return repository.findByUserIdAndEventId(user.getId(), event.getId()).orElseThrow(() -> e);
+        }
+	}
+
+	@Override
+	public List<BulkBookingResult> createBookings(int eventId, List<Integer> userIds)
+			throws EventNotFoundException, DependencyUnavailableException {
+		Set<Integer> requested = new LinkedHashSet<>(userIds);
+		if (requested.isEmpty()) {
+			return List.of();
+		}
+		CompletableFuture<Event> eventLookup = lookups.event(eventId);
+		CompletableFuture<Map<Integer, User>> usersLookup = lookups.users(requested);
+		Event event = lookups.awaitEvent(eventLookup, eventId);
+		Map<Integer, User> users = lookups.awaitUsers(usersLookup);
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			seatInventory.prepare(event);
+			try {
+				return transactionTemplate.execute(status -> bookAll(event, requested, users));
+			} catch (DataIntegrityViolationException e) {
+				// one of the users was booked concurrently, the rerun sees it as already booked
+				return transactionTemplate.execute(status -> bookAll(event, requested, users));
+			}
+		}
+	}
+
+	private List<BulkBookingResult> bookAll(Event event, Set<Integer> requested, Map<Integer, User> users) {
+		Set<Integer> alreadyBooked = new LinkedHashSet<>(repository.findBookedUserIds(event.getId(), requested));
+		List<User> toBook = new ArrayList<>();
+		for (Integer userId : requested) {
+			User user = users.get(userId);
+			if (user != null && !alreadyBooked.contains(userId)) {
+				toBook.add(user);
+			}
+		}
+		int seats = seatInventory.reserveUpTo(event, toBook.size());
+		List<Booking> bookings = new ArrayList<>(seats);
+		for (User user : toBook.subList(0, seats)) {
+			bookings.add(new Booking(0, user.getId(), user.getName(), event.getId(), event.getName(), event.getDate(),
+					event.getLocation(), event.getVenue()));
+		}
+		// sent as JDBC batches of hibernate.jdbc.batch_size rows
+		repository.saveAllAndFlush(bookings);
+		outbox.created(bookings);
+
+		List<BulkBookingResult> results = new ArrayList<>(requested.size());
+		Set<Integer> booked = new LinkedHashSet<>();
+		bookings.forEach(booking -> booked.add(booking.getUserId()));
+		for (Integer userId : requested) {
+			Status outcome;
+			if (!users.containsKey(userId)) {
+				outcome = Status.USER_NOT_FOUND;
+			} else if (alreadyBooked.contains(userId)) {
+				outcome = Status.ALREADY_BOOKED;
+			} else if (booked.contains(userId)) {
+				outcome = Status.BOOKED;
+			} else {
+				outcome = Status.SOLD_OUT;
+			}
+			results.add(new BulkBookingResult(userId, outcome));
+		}
+		return results;
+	}
+
+	@Override
+	public String joinWaitlist(int userId, int eventId, int priority)
+			throws UserNotFoundException, EventNotFoundException, WaitlistFullException, DependencyUnavailableException {
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			if (repository.findByUserIdAndEventId(userId, eventId).isPresent()) {
+				return "User " + userId + " is already registered to event " + eventId;
+			}
+			CompletableFuture<User> userLookup = lookups.user(userId);
+			CompletableFuture<Event> eventLookup = lookups.event(eventId);
+			User user = lookups.awaitUser(userLookup, userId);
+			Event event = lookups.awaitEvent(eventLookup, eventId);
+			// nobody waits while seats are left, the user gets one straight away
+			Booking booked = reserveAndInsert(user, event);
+			if (booked != null) {
+				return registeredMessage(booked);
+			}
+			// the transaction starts after the lookups, so no connection is held while they run
+			Boolean joined = transactionTemplate.execute(
+					status -> waitlist.join(event.getId(), user.getId(), user.getName(), priority));
+			if (!Boolean.TRUE.equals(joined)) {
+				throw new WaitlistFullException("Waitlist for event " + event.getName() + " is full");
+			}
+			return "User " + user.getName() + " added to the waitlist for event " + event.getName();
+		}
+	}
+
+	@Override
+	public String leaveWaitlist(int userId, int eventId) {
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			Boolean left = transactionTemplate.execute(status -> waitlist.leave(eventId, userId));
+			return Boolean.TRUE.equals(left) ? "User removed from the waitlist"
+					: "User " + userId + " is not on the waitlist for event " + eventId;
+		}
+	}
+
+	@Override
+	public List<WaitlistEntry> getWaitlist(int eventId) {
+		try (ShardContext.Scope scope = shards.forEvent(eventId)) {
+			return waitlist.entries(eventId);
+		}
+	}
+
+	private String registeredMessage(Booking booking) {
+		return "User " + booking.getUserName() + " registered to event " + booking.getEventName() + " successfully";
 	}
 }
@@ -0,0 +1,307 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.EventShard;
+import com.example.demo.entity.LegacyBookingIds;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.EventInventoryRepository;
+import com.example.demo.repository.EventShardRepository;
+import com.example.demo.repository.LegacyBookingIdsRepository;
+import com.example.demo.util.ShardContext;
+
+/**
+ * Decides which shard holds what. Everything of an event, its bookings, seat
+ * inventory, waitlist and outbox records, lives on one shard. The first time
+ * an event is routed it is placed by a hash of its id, or where
+ * {@code booking.shards.pinned} maps it ({@code eventId:shard,...}), and the
+ * placement is recorded in {@code event_shards} on shard 0. From then on the
+ * record decides, whatever the shard count or pins say. A booking id names its
+ * shard, so lookups by id go straight there. Ids issued before the service
+ * first ran sharded do not; up to the highest of them, recorded in
+ * {@code legacy_booking_ids}, the shards are searched for the row. Without
+ * {@code booking.shards.urls} nothing is routed.
+ *
+ * At start-up every event with rows on a shard is checked against the record,
+ * and the service refuses to start when an event's rows are on another shard
+ * than recorded, on more than one shard, on a shard no longer configured, or
+ * when a pin would move an event that already has rows.
+ */
+@Component
+public class BookingShards implements InitializingBean, DisposableBean {
+
+	public static final Comparator<Booking> BY_ID = Comparator.comparingInt(Booking::getId);
+
+	private static final ShardContext.Scope UNSHARDED = () -> {
+	};
+
+	// the shard holding event_shards
+	private static final int DIRECTORY = 0;
+
+	private int count;
+	private boolean sharded;
+	private Map<Integer, Integer> pinned = new HashMap<>();
+	// placements never change once recorded, so they are cached for good
+	private final Map<Integer, Integer> assignments = new ConcurrentHashMap<>();
+	// ids up to this one do not name their shard
+	private int legacyMaxId;
+	private EventShardRepository directory;
+	private LegacyBookingIdsRepository legacyIds;
+	private BookingRepository bookings;
+	private EventInventoryRepository inventory;
+	private ExecutorService executor;
+
+	public BookingShards(EventShardRepository directory, LegacyBookingIdsRepository legacyIds,
+			BookingRepository bookings, EventInventoryRepository inventory,
+			@Value("${booking.shards.urls:}") List<String> urls,
+			@Value("${booking.shards.pinned:}") List<String> pins,
+			@Value("${booking.shards.query-threads:16}") int queryThreads) {
+		this.directory = directory;
+		this.legacyIds = legacyIds;
+		this.bookings = bookings;
+		this.inventory = inventory;
+		this.sharded = !urls.isEmpty();
+		this.count = Math.max(1, urls.size());
+		for (String pin : pins) {
+			String[] parts = pin.split(":");
+			int shard = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : -1;
+			if (shard < 0 || shard >= count) {
+				throw new IllegalArgumentException("Invalid booking.shards.pinned entry: " + pin);
+			}
+			pinned.put(Integer.parseInt(parts[0].trim()), shard);
+		}
+		if (count > 1) {
+			AtomicInteger threadCount = new AtomicInteger();
+			this.executor = new ThreadPoolExecutor(queryThreads, queryThreads, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "booking-shard-" + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+		}
+	}
+
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * The shard of the event, recording a placement for it if it has none yet.
+	 * Must not be called inside a transaction.
+	 */
+	public int shardOfEvent(int eventId) {
+		if (!sharded) {
+			return 0;
+		}
+		Integer shard = assignments.get(eventId);
+		if (shard != null) {
+			return shard;
+		}
+		try (ShardContext.Scope scope = ShardContext.enter(DIRECTORY)) {
+			shard = directory.findById(eventId).map(EventShard::getShard).orElse(null);
+			if (shard == null) {
+				try {
+					shard = placement(eventId);
+					directory.create(eventId, shard);
+				} catch (DataIntegrityViolationException e) {
+					// another instance placed it first
+					shard = directory.findById(eventId).orElseThrow(() -> e).getShard();
+				}
+			}
+		}
+		assignments.put(eventId, shard);
+		return shard;
+	}
+
+	// where a new event goes
+	private int placement(int eventId) {
+		Integer pin = pinned.get(eventId);
+		if (pin != null) {
+			return pin;
+		}
+		// mixed so that ids following a pattern, such as all even ones, still spread over every shard
+		int hash = eventId * 0x9E3779B9;
+		return Math.floorMod(hash ^ (hash >>> 16), count);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (!sharded) {
+			return;
+		}
+		Map<Integer, Integer> recorded = new HashMap<>();
+		try (ShardContext.Scope scope = ShardContext.enter(DIRECTORY)) {
+			directory.findAll().forEach(assignment -> recorded.put(assignment.getEventId(), assignment.getShard()));
+		}
+		recorded.forEach((eventId, shard) -> {
+			if (shard >= count) {
+				throw new IllegalStateException("Event " + eventId + " lives on shard " + shard + " but only " + count
+						+ " shards are configured in booking.shards.urls");
+			}
+		});
+		// events with rows but no record, written before placements were recorded
+		Map<Integer, Integer> found = new HashMap<>();
+		forEachShard(shard -> {
+			Set<Integer> eventIds = new HashSet<>(bookings.findEventIds());
+			eventIds.addAll(inventory.findEventIds());
+			for (Integer eventId : eventIds) {
+				Integer home = recorded.containsKey(eventId) ? recorded.get(eventId) : found.putIfAbsent(eventId, shard);
+				if (home != null && home != shard) {
+					throw new IllegalStateException("Event " + eventId + " has booking data on shard " + shard
+							+ " but lives on shard " + home + "; move its rows before starting");
+				}
+			}
+		});
+		pinned.forEach((eventId, pin) -> {
+			Integer home = recorded.containsKey(eventId) ? recorded.get(eventId) : found.get(eventId);
+			if (home != null && home != pin.intValue()) {
+				throw new IllegalStateException("Cannot pin event " + eventId + " to shard " + pin
+						+ ": its booking data is on shard " + home);
+			}
+		});
+		if (!found.isEmpty()) {
+			try (ShardContext.Scope scope = ShardContext.enter(DIRECTORY)) {
+				directory.saveAll(found.entrySet().stream()
+						.map(entry -> new EventShard(entry.getKey(), entry.getValue())).toList());
+			}
+		}
+		assignments.putAll(recorded);
+		assignments.putAll(found);
+		legacyMaxId = legacyMaxId();
+	}
+
+	// recorded on the first sharded start, before any id that names a shard is issued
+	private int legacyMaxId() {
+		try (ShardContext.Scope scope = ShardContext.enter(DIRECTORY)) {
+			LegacyBookingIds recorded = legacyIds.findById(LegacyBookingIds.ID).orElse(null);
+			if (recorded != null) {
+				return recorded.getMaxId();
+			}
+		}
+		int[] maxId = new int[1];
+		forEachShard(shard -> maxId[0] = Math.max(maxId[0], bookings.findMaxId()));
+		try (ShardContext.Scope scope = ShardContext.enter(DIRECTORY)) {
+			try {
+				legacyIds.create(maxId[0]);
+				return maxId[0];
+			} catch (DataIntegrityViolationException e) {
+				// another instance recorded it first
+				return legacyIds.findById(LegacyBookingIds.ID).orElseThrow(() -> e).getMaxId();
+			}
+		}
+	}
+
+	/**
+	 * The shard holding the booking. Must not be called inside a transaction.
+	 */
+	public int shardOfBooking(int bookingId) {
+		// ids naming an unconfigured shard exist nowhere, any shard answers "not found"
+		int named = Math.floorMod(bookingId, ShardContext.MAX_SHARDS) % count;
+		if (bookingId > legacyMaxId || holds(named, bookingId)) {
+			return named;
+		}
+		// a legacy id, or a newer one that happens to be as low: the row is wherever it is found
+		for (int shard = 0; shard < count; shard++) {
+			if (shard != named && holds(shard, bookingId)) {
+				return shard;
+			}
+		}
+		return named;
+	}
+
+	private boolean holds(int shard, int bookingId) {
+		try (ShardContext.Scope scope = ShardContext.enter(shard)) {
+			return bookings.existsById(bookingId);
+		}
+	}
+
+	public ShardContext.Scope forEvent(int eventId) {
+		return sharded ? ShardContext.enter(shardOfEvent(eventId)) : UNSHARDED;
+	}
+
+	public ShardContext.Scope forBooking(int bookingId) {
+		return sharded ? ShardContext.enter(shardOfBooking(bookingId)) : UNSHARDED;
+	}
+
+	/**
+	 * Runs the task once per shard, one shard after the other, on the calling
+	 * thread.
+	 */
+	public void forEachShard(IntConsumer task) {
+		if (!sharded) {
+			task.accept(0);
+			return;
+		}
+		for (int shard = 0; shard < count; shard++) {
+			try (ShardContext.Scope scope = ShardContext.enter(shard)) {
+				task.accept(shard);
+			}
+		}
+	}
+
+	/**
+	 * Runs the query on every shard at once and merges the results in the
+	 * given order. With a single shard the result is returned as it is.
+	 */
+	public <T> List<T> collect(Supplier<List<T>> query, Comparator<? super T> order) {
+		if (count == 1) {
+			try (ShardContext.Scope scope = sharded ? ShardContext.enter(0) : UNSHARDED) {
+				return query.get();
+			}
+		}
+		List<CompletableFuture<List<T>>> parts = new ArrayList<>(count);
+		for (int shard = 0; shard < count; shard++) {
+			int target = shard;
+			parts.add(CompletableFuture.supplyAsync(() -> {
+				try (ShardContext.Scope scope = ShardContext.enter(target)) {
+					return query.get();
+				}
+			}, executor));
+		}
+		List<T> merged = new ArrayList<>();
+		try {
+			for (CompletableFuture<List<T>> part : parts) {
+				merged.addAll(part.join());
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+		// sorted runs, one per shard, which the sort merges in linear time
+		merged.sort(order);
+		return merged;
+	}
+
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+}
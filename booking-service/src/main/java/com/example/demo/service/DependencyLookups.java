@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.Event;
+import com.example.demo.dto.User;
+import com.example.demo.exception.DependencyUnavailableException;
+import com.example.demo.exception.EventNotFoundException;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.feign.EventClient;
+import com.example.demo.feign.UserClient;
+import com.example.demo.util.EventSnapshotCache;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Issues the user and event lookups a booking needs as concurrent, timed calls
+ * and maps their failures to 404 / 503 exceptions.
+ */
+@Component
+public class DependencyLookups {
+
+	private UserClient userClient;
+	private EventClient eventClient;
+	private ExecutorService executor;
+	private MeterRegistry registry;
+	private long timeoutMillis;
+	private EventSnapshotCache eventCache;
+
+	// keeps the query string of each batched lookup well inside the server's header limits
+	private static final int MAX_IDS_PER_CALL = 500;
+
+	public DependencyLookups(UserClient userClient, EventClient eventClient,
+			@Qualifier("dependencyExecutor") ExecutorService executor, MeterRegistry registry,
+			@Value("${booking.dependency.timeout-ms:2000}") long timeoutMillis, EventSnapshotCache eventCache) {
+		this.userClient = userClient;
+		this.eventClient = eventClient;
+		this.executor = executor;
+		this.registry = registry;
+		this.timeoutMillis = timeoutMillis;
+		this.eventCache = eventCache;
+	}
+
+	public CompletableFuture<User> user(int userId) {
+		return call("user", () -> userClient.getUserById(userId).getBody());
+	}
+
+	// served from the snapshot cache when possible, without a call to event-service
+	public CompletableFuture<Event> event(int eventId) {
+		Event cached = eventCache.get(eventId);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		long generation = eventCache.generation();
+		return call("event", () -> {
+			Event event = eventClient.getEventById(eventId).getBody();
+			if (event != null) {
+				eventCache.put(event, generation);
+			}
+			return event;
+		});
+	}
+
+	/**
+	 * Looks the users up in batches that run concurrently. The result only
+	 * holds the users that exist, keyed by id.
+	 */
+	public CompletableFuture<Map<Integer, User>> users(Collection<Integer> userIds) {
+		List<Integer> ids = new ArrayList<>(userIds);
+		List<CompletableFuture<List<User>>> batches = new ArrayList<>();
+		for (int from = 0; from < ids.size(); from += MAX_IDS_PER_CALL) {
+			List<Integer> batch = ids.subList(from, Math.min(from + MAX_IDS_PER_CALL, ids.size()));
+			batches.add(call("users", () -> userClient.getUsersByIds(batch).getBody()));
+		}
+		return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+			Map<Integer, User> users = new HashMap<>();
+			for (CompletableFuture<List<User>> batch : batches) {
+				List<User> found = batch.join();
+				if (found != null) {
+					found.forEach(user -> users.put(user.getId(), user));
+				}
+			}
+			return users;
+		});
+	}
+
+	public Map<Integer, User> awaitUsers(CompletableFuture<Map<Integer, User>> lookup)
+			throws DependencyUnavailableException {
+		try {
+			return lookup.join();
+		} catch (CompletionException e) {
+			throw new DependencyUnavailableException("User service unavailable", e.getCause());
+		}
+	}
+
+	public User awaitUser(CompletableFuture<User> lookup, int userId)
+			throws UserNotFoundException, DependencyUnavailableException {
+		try {
+			User user = lookup.join();
+			if (user == null) {
+				throw new UserNotFoundException("User not found with id : " + userId);
+			}
+			return user;
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof FeignException.NotFound) {
+				throw new UserNotFoundException("User not found with id : " + userId);
+			}
+			throw new DependencyUnavailableException("User service unavailable", e.getCause());
+		}
+	}
+
+	public Event awaitEvent(CompletableFuture<Event> lookup, int eventId)
+			throws EventNotFoundException, DependencyUnavailableException {
+		try {
+			Event event = lookup.join();
+			if (event == null) {
+				throw new EventNotFoundException("Event not present with id: " + eventId);
+			}
+			return event;
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof FeignException.NotFound) {
+				throw new EventNotFoundException("Event not present with id: " + eventId);
+			}
+			throw new DependencyUnavailableException("Event service unavailable", e.getCause());
+		}
+	}
+
+	private <T> CompletableFuture<T> call(String dependency, Supplier<T> remoteCall) {
+		return CompletableFuture.supplyAsync(() -> {
+			Timer.Sample sample = Timer.start(registry);
+			String outcome = "success";
+			try {
+				return remoteCall.get();
+			} catch (RuntimeException e) {
+				outcome = e instanceof FeignException.NotFound ? "not_found" : "error";
+				throw e;
+			} finally {
+				sample.stop(registry.timer("booking.dependency.calls", "dependency", dependency, "outcome", outcome));
+			}
+		}, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+}
@@ -0,0 +1,340 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.OutboxLease;
+import com.example.demo.repository.OutboxLeaseRepository;
+import com.example.demo.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes outbox records in id order. Each batch is POSTed as a JSON array to
+ * every URL in {@code booking.outbox.subscribers} and is marked published only
+ * once all HTTP subscribers accepted it. A failed batch is sent again on the
+ * next run, so delivery is at least once and subscribers should ignore ids
+ * they have already seen.
+ *
+ * Every instance runs the relay, but only the holder of a shard's
+ * {@link OutboxLease} publishes that shard. Marking a batch published stamps
+ * its records with the next positions under the lease row's lock, so positions
+ * commit in the order they are handed out even though pooled ids do not.
+ * Each instance then pushes newly published records to its own SSE streams by
+ * reading positions past the last one it broadcast.
+ *
+ * The SSE event id lists the last position sent per shard, comma separated in
+ * shard order, and a client reconnecting with it as Last-Event-ID resumes
+ * every shard where it left off. Unsharded it is the plain position. A client
+ * without one starts at the newest record. Replays run on a small pool of
+ * their own and send at most {@code booking.outbox.replay-limit} records;
+ * a stream further behind is closed after them and resumes on reconnect.
+ */
+@Component
+public class OutboxRelay implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+	private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+	private final String owner = UUID.randomUUID().toString();
+	private OutboxRepository repository;
+	private OutboxLeaseRepository leases;
+	private BookingShards shards;
+	// last position broadcast per shard, only touched by the relay thread
+	private long[] broadcastUpTo;
+	private boolean started;
+	private TransactionTemplate transactionTemplate;
+	private RestClient restClient;
+	private List<String> subscribers;
+	private int batchSize;
+	private long retentionMillis;
+	private long leaseMillis;
+	private int replayLimit;
+	private ExecutorService replays;
+
+	private Counter published;
+	private Counter failures;
+
+	public OutboxRelay(OutboxRepository repository, OutboxLeaseRepository leases, BookingShards shards,
+			TransactionTemplate transactionTemplate, RestClient.Builder builder, MeterRegistry registry,
+			@Value("${booking.outbox.subscribers:}") List<String> subscribers,
+			@Value("${booking.outbox.batch-size:500}") int batchSize,
+			@Value("${booking.outbox.retention:7d}") Duration retention,
+			@Value("${booking.outbox.lease:30s}") Duration lease,
+			@Value("${booking.outbox.replay-limit:10000}") int replayLimit,
+			@Value("${booking.outbox.replay-threads:4}") int replayThreads) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(Duration.ofSeconds(2));
+		requestFactory.setReadTimeout(Duration.ofSeconds(5));
+		this.repository = repository;
+		this.leases = leases;
+		this.shards = shards;
+		this.broadcastUpTo = new long[shards.count()];
+		this.transactionTemplate = transactionTemplate;
+		this.restClient = builder.requestFactory(requestFactory).build();
+		this.subscribers = subscribers;
+		this.batchSize = batchSize;
+		this.retentionMillis = retention.toMillis();
+		this.leaseMillis = lease.toMillis();
+		this.replayLimit = replayLimit;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.replays = new ThreadPoolExecutor(replayThreads, replayThreads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(100), runnable -> {
+					Thread thread = new Thread(runnable, "outbox-replay-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.published = Counter.builder("booking.outbox.published").register(registry);
+		this.failures = Counter.builder("booking.outbox.failures").register(registry);
+		Gauge.builder("booking.outbox.streams", emitters, List::size).register(registry);
+	}
+
+	@Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:500}")
+	public void relay() {
+		if (!started) {
+			// streams opened from now on replay the past themselves
+			shards.forEachShard(shard -> broadcastUpTo[shard] = repository.findLastPosition());
+			started = true;
+		}
+		shards.forEachShard(shard -> {
+			if (claim()) {
+				publish();
+			}
+			broadcastPublished(shard);
+		});
+	}
+
+	private void publish() {
+		List<OutboxEvent> batch;
+		do {
+			batch = repository.findByPublishedFalseOrderByIdAsc(Limit.of(batchSize));
+			if (batch.isEmpty() || !deliver(batch)) {
+				break;
+			}
+			List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+			if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> markPublished(ids)))) {
+				// the lease lapsed while delivering, the new holder sends the batch again
+				logger.info("Outbox lease lost, leaving the batch to the instance that took it over");
+				return;
+			}
+			published.increment(batch.size());
+		} while (batch.size() == batchSize && claim());
+		Date cutoff = new Date(System.currentTimeMillis() - retentionMillis);
+		transactionTemplate.executeWithoutResult(status -> repository.deletePublishedBefore(cutoff, batchSize));
+	}
+
+	// takes or renews the current shard's lease, creating the row on first use
+	private boolean claim() {
+		long now = System.currentTimeMillis();
+		Integer claimed = transactionTemplate.execute(status -> leases.claim(owner, now, now + leaseMillis));
+		if (claimed != null && claimed == 1) {
+			return true;
+		}
+		if (leases.existsById(OutboxLease.ID)) {
+			return false;
+		}
+		try {
+			transactionTemplate.executeWithoutResult(
+					status -> leases.create(owner, now + leaseMillis, repository.findLastPosition()));
+			return true;
+		} catch (DataIntegrityViolationException e) {
+			// another instance created it first
+			return false;
+		}
+	}
+
+	// under the lease row's lock, so positions commit in the order they are handed out
+	private boolean markPublished(List<Long> ids) {
+		OutboxLease lease = leases.lock().orElse(null);
+		if (lease == null || !owner.equals(lease.getOwner())) {
+			return false;
+		}
+		long position = lease.getPosition();
+		List<OutboxEvent> events = new ArrayList<>(repository.findAllById(ids));
+		events.sort(Comparator.comparingLong(OutboxEvent::getId));
+		for (OutboxEvent event : events) {
+			if (!event.isPublished()) {
+				event.setPublished(true);
+				event.setPosition(++position);
+			}
+		}
+		lease.setPosition(position);
+		return true;
+	}
+
+	private void broadcastPublished(int shard) {
+		List<OutboxEvent> page;
+		do {
+			page = repository.findByPositionGreaterThanOrderByPositionAsc(broadcastUpTo[shard], Limit.of(batchSize));
+			for (OutboxEvent event : page) {
+				broadcastUpTo[shard] = event.getPosition();
+				broadcast(cursor(broadcastUpTo), event);
+			}
+		} while (page.size() == batchSize);
+	}
+
+	/**
+	 * Opens an SSE stream. Records published after {@code lastEventId}, or
+	 * from now on without one, are replayed from the table first, then new ones
+	 * follow as they are published. A record published during the replay may be
+	 * sent twice.
+	 */
+	public SseEmitter subscribe(String lastEventId) {
+		return subscribe(lastEventId, new SseEmitter(0L));
+	}
+
+	SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+		AtomicBoolean open = new AtomicBoolean(true);
+		Runnable close = () -> {
+			open.set(false);
+			emitters.remove(emitter);
+		};
+		emitter.onCompletion(close);
+		emitter.onTimeout(close);
+		emitter.onError(e -> close.run());
+		try {
+			replays.execute(() -> catchUp(emitter, open, lastEventId));
+		} catch (RejectedExecutionException e) {
+			// the client reconnects and tries again
+			logger.warn("Too many SSE replays in progress, closing a new stream");
+			emitter.complete();
+		}
+		return emitter;
+	}
+
+	private void catchUp(SseEmitter emitter, AtomicBoolean open, String lastEventId) {
+		long[] cursor = lastEventId == null || lastEventId.isBlank() ? head() : parseCursor(lastEventId);
+		int[] left = { replayLimit };
+		if (!replay(emitter, open, cursor, left)) {
+			return;
+		}
+		// live records only follow the replay, so the ids a client sees never skip ahead of it
+		emitters.add(emitter);
+		// records published while replaying
+		replay(emitter, open, cursor, left);
+	}
+
+	private long[] head() {
+		long[] cursor = new long[shards.count()];
+		shards.forEachShard(shard -> cursor[shard] = repository.findLastPosition());
+		return cursor;
+	}
+
+	// false once the stream is closed, or closed for having sent the limit
+	private boolean replay(SseEmitter emitter, AtomicBoolean open, long[] cursor, int[] left) {
+		boolean[] more = { true };
+		shards.forEachShard(shard -> {
+			List<OutboxEvent> page;
+			do {
+				if (!more[0] || !open.get()) {
+					more[0] = false;
+					return;
+				}
+				page = repository.findByPositionGreaterThanOrderByPositionAsc(cursor[shard], Limit.of(batchSize));
+				for (OutboxEvent event : page) {
+					if (left[0] == 0) {
+						// the client resumes from the last id it got when it reconnects
+						emitter.complete();
+						more[0] = false;
+						return;
+					}
+					cursor[shard] = event.getPosition();
+					left[0]--;
+					if (!send(emitter, cursor(cursor), event)) {
+						more[0] = false;
+						return;
+					}
+				}
+			} while (page.size() == batchSize);
+		});
+		return more[0];
+	}
+
+	// missing or unreadable positions start that shard from the beginning
+	private long[] parseCursor(String lastEventId) {
+		long[] cursor = new long[shards.count()];
+		String[] positions = lastEventId.split(",");
+		for (int shard = 0; shard < cursor.length && shard < positions.length; shard++) {
+			try {
+				cursor[shard] = Long.parseLong(positions[shard].trim());
+			} catch (NumberFormatException e) {
+				cursor[shard] = 0;
+			}
+		}
+		return cursor;
+	}
+
+	private static String cursor(long[] positions) {
+		return LongStream.of(positions).mapToObj(Long::toString).collect(Collectors.joining(","));
+	}
+
+	private boolean deliver(List<OutboxEvent> batch) {
+		for (String subscriber : subscribers) {
+			try {
+				restClient.post().uri(subscriber).contentType(MediaType.APPLICATION_JSON).body(batch)
+						.retrieve().toBodilessEntity();
+			} catch (RestClientException e) {
+				failures.increment();
+				logger.warn("Outbox delivery to {} failed, retrying next run: {}", subscriber, e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void broadcast(String id, OutboxEvent event) {
+		for (SseEmitter emitter : emitters) {
+			send(emitter, id, event);
+		}
+	}
+
+	private boolean send(SseEmitter emitter, String id, OutboxEvent event) {
+		try {
+			emitter.send(SseEmitter.event().id(id).name(event.getType().name()).data(event));
+			return true;
+		} catch (IOException | IllegalStateException e) {
+			emitters.remove(emitter);
+			emitter.completeWithError(e);
+			return false;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		replays.shutdownNow();
+	}
+
+}
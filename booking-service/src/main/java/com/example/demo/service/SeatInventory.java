@@ -0,0 +1,233 @@
+package com.example.demo.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.Event;
+import com.example.demo.repository.EventInventoryRepository;
+import com.example.demo.util.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hands out seats for events that have a capacity.
+ *
+ * Each event has an in-memory counter that is decremented with a CAS before the
+ * database is touched, so once an event is sold out further requests are turned
+ * away without a round trip. The counter is only a hint: a seat is granted only
+ * when the conditional update on {@code event_inventory} succeeds, which is what
+ * keeps several booking-service instances from overselling between them.
+ * Callers {@link #prepare(Event)} the event first, outside any transaction,
+ * then reserve inside their own transaction; if it rolls back, the row and the
+ * counter are both restored.
+ */
+@Component
+public class SeatInventory {
+
+	private final Map<Integer, SeatCounter> counters = new ConcurrentHashMap<>();
+	private EventInventoryRepository repository;
+	private TransactionTemplate transactionTemplate;
+	private long recheckMillis;
+
+	private Counter granted;
+	private Counter soldOut;
+	private Counter resyncs;
+
+	public SeatInventory(EventInventoryRepository repository, PlatformTransactionManager transactionManager,
+			MeterRegistry registry, @Value("${booking.inventory.recheck-ms:1000}") long recheckMillis) {
+		this.repository = repository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.recheckMillis = recheckMillis;
+		this.granted = Counter.builder("booking.inventory.reservations").tag("result", "granted").register(registry);
+		this.soldOut = Counter.builder("booking.inventory.reservations").tag("result", "sold_out").register(registry);
+		this.resyncs = Counter.builder("booking.inventory.resyncs").register(registry);
+	}
+
+	/**
+	 * Loads the event's counter, creating its inventory row on first use. Runs
+	 * its own short transaction, so it must be called before the caller opens
+	 * the one it reserves in: otherwise every cold event would hold two pooled
+	 * connections at once.
+	 */
+	public void prepare(Event event) {
+		if (event.getCapacity() == null || counters.containsKey(event.getId())) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("Seat inventory must be prepared before the transaction starts");
+		}
+		counters.putIfAbsent(event.getId(), load(event.getId(), event.getCapacity()));
+	}
+
+	/**
+	 * Reserves seats for the event within the caller's transaction. Events
+	 * without a capacity always succeed.
+	 *
+	 * @return false if fewer than {@code seats} seats are left
+	 */
+	public boolean reserve(Event event, int seats) {
+		if (event.getCapacity() == null) {
+			return true;
+		}
+		int eventId = event.getId();
+		SeatCounter counter = counterFor(event);
+		if (counter.take(seats, seats) == 0) {
+			soldOut.increment();
+			return false;
+		}
+		if (repository.reserve(eventId, seats) == 0) {
+			// another instance sold these seats, the database has the real figure
+			counter.resync(repository.findRemaining(eventId).orElse(0));
+			resyncs.increment();
+			soldOut.increment();
+			return false;
+		}
+		TransactionCallbacks.afterRollback(() -> counter.remaining.addAndGet(seats));
+		granted.increment();
+		return true;
+	}
+
+	/**
+	 * Reserves as many of the requested seats as are left, within the caller's
+	 * transaction.
+	 *
+	 * @return the number of seats granted, between 0 and {@code seats}
+	 */
+	public int reserveUpTo(Event event, int seats) {
+		if (event.getCapacity() == null || seats <= 0) {
+			return Math.max(seats, 0);
+		}
+		int eventId = event.getId();
+		SeatCounter counter = counterFor(event);
+		while (true) {
+			int taken = counter.take(1, seats);
+			if (taken == 0) {
+				soldOut.increment();
+				return 0;
+			}
+			if (repository.reserve(eventId, taken) == 1) {
+				TransactionCallbacks.afterRollback(() -> counter.remaining.addAndGet(taken));
+				granted.increment(taken);
+				return taken;
+			}
+			// fewer seats left than the counter thought, retry with the database figure
+			counter.resync(repository.findRemaining(eventId).orElse(0));
+			resyncs.increment();
+		}
+	}
+
+	/**
+	 * Returns seats of cancelled bookings to the event within the caller's
+	 * transaction, never beyond its capacity.
+	 */
+	public void release(int eventId, int seats) {
+		if (seats <= 0 || repository.release(eventId, seats) == 0) {
+			return;
+		}
+		TransactionCallbacks.afterCommit(() -> {
+			SeatCounter counter = counters.get(eventId);
+			if (counter != null) {
+				counter.remaining.addAndGet(seats);
+			}
+		});
+	}
+
+	/**
+	 * Drops the inventory of an event whose bookings have all been removed.
+	 */
+	public void remove(int eventId) {
+		repository.deleteById(eventId);
+		TransactionCallbacks.afterCommit(() -> counters.remove(eventId));
+	}
+
+	private SeatCounter counterFor(Event event) {
+		SeatCounter counter = counters.get(event.getId());
+		if (counter != null) {
+			return counter;
+		}
+		// not prepared, or dropped since: read the row with the caller's connection and leave caching to prepare
+		int capacity = event.getCapacity();
+		int remaining = repository.findRemaining(event.getId()).orElseGet(() -> {
+			repository.create(event.getId(), capacity);
+			return capacity;
+		});
+		return new SeatCounter(event.getId(), remaining);
+	}
+
+	private SeatCounter load(int eventId, int capacity) {
+		Integer remaining;
+		try {
+			remaining = transactionTemplate.execute(status -> repository.findRemaining(eventId).orElseGet(() -> {
+				repository.create(eventId, capacity);
+				return capacity;
+			}));
+		} catch (DataIntegrityViolationException e) {
+			// another instance created the row first
+			remaining = transactionTemplate.execute(status -> repository.findRemaining(eventId).orElse(0));
+		}
+		return new SeatCounter(eventId, remaining == null ? 0 : remaining);
+	}
+
+	// a counter at zero is rechecked against the database at most once per interval
+	private class SeatCounter {
+		private final int eventId;
+		private final AtomicInteger remaining;
+		private volatile long checkedAt;
+
+		private SeatCounter(int eventId, int remaining) {
+			this.eventId = eventId;
+			this.remaining = new AtomicInteger(remaining);
+			this.checkedAt = System.currentTimeMillis();
+		}
+
+		// takes between min and max seats, or none when fewer than min are left
+		private int take(int min, int max) {
+			while (true) {
+				int current = remaining.get();
+				if (current < min) {
+					if (!recheckDue() || remaining.get() < min) {
+						return 0;
+					}
+					continue;
+				}
+				int taken = Math.min(current, max);
+				if (remaining.compareAndSet(current, current - taken)) {
+					return taken;
+				}
+			}
+		}
+
+		private boolean recheckDue() {
+			long now = System.currentTimeMillis();
+			long last = checkedAt;
+			if (now - last < recheckMillis) {
+				return false;
+			}
+			// only one thread per interval goes to the database
+			synchronized (this) {
+				if (checkedAt != last) {
+					return false;
+				}
+				checkedAt = now;
+			}
+			resync(repository.findRemaining(eventId).orElse(0));
+			resyncs.increment();
+			return true;
+		}
+
+		private void resync(int fromDatabase) {
+			checkedAt = System.currentTimeMillis();
+			remaining.set(fromDatabase);
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.UserBookings;
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.util.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cached per-user booking lists with an ETag, so a client holding the current
+ * ETag is answered without touching the database.
+ *
+ * Lists are dropped when a booking of the user changes on this instance, via
+ * {@link #changed}, and otherwise live for the TTL, which bounds how long a
+ * change made by another instance can go unseen. The ETag is a digest of the
+ * list's contents, so it changes exactly when the bookings do and is the same
+ * after a reload and on every instance.
+ */
+@Component
+public class UserBookingsView {
+
+	private static final int STRIPES = 4096;
+
+	private final Map<Integer, Entry> views = new ConcurrentHashMap<>();
+	// per-user change counters, striped to keep memory fixed; used to drop loads that raced with a change
+	private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+	private BookingRepository repository;
+	private BookingShards shards;
+	private int maxSize;
+	private long ttlMillis;
+
+	private Counter hits;
+	private Counter misses;
+
+	public UserBookingsView(BookingRepository repository, BookingShards shards, MeterRegistry registry,
+			@Value("${booking.user-view.max-size:10000}") int maxSize,
+			@Value("${booking.user-view.ttl:30s}") Duration ttl) {
+		this.repository = repository;
+		this.shards = shards;
+		this.maxSize = maxSize;
+		this.ttlMillis = ttl.toMillis();
+		this.hits = Counter.builder("booking.user.view.requests").tag("result", "hit").register(registry);
+		this.misses = Counter.builder("booking.user.view.requests").tag("result", "miss").register(registry);
+	}
+
+	public UserBookings get(int userId) {
+		long now = System.currentTimeMillis();
+		Entry entry = views.get(userId);
+		if (entry != null && entry.expiresAt > now) {
+			hits.increment();
+			return entry.view;
+		}
+		misses.increment();
+		long version = versions.get(stripe(userId));
+		List<Booking> bookings = List.copyOf(shards.collect(() -> repository.getByUserId(userId), BookingShards.BY_ID));
+		UserBookings loaded = new UserBookings(bookings, etag(bookings));
+		if (views.size() >= maxSize) {
+			makeRoom(now);
+		}
+		Entry fresh = new Entry(loaded, now + ttlMillis);
+		views.put(userId, fresh);
+		// a booking of this user changed while loading
+		if (versions.get(stripe(userId)) != version) {
+			views.remove(userId, fresh);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Drops the user's list once the current transaction commits.
+	 */
+	public void changed(int userId) {
+		TransactionCallbacks.afterCommit(() -> {
+			versions.incrementAndGet(stripe(userId));
+			views.remove(userId);
+		});
+	}
+
+	/**
+	 * Drops every list, for changes that touch many users at once.
+	 */
+	public void changedAll() {
+		TransactionCallbacks.afterCommit(() -> {
+			for (int i = 0; i < STRIPES; i++) {
+				versions.incrementAndGet(i);
+			}
+			views.clear();
+		});
+	}
+
+	private static String etag(List<Booking> bookings) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		for (Booking booking : bookings) {
+			// dates as epoch millis, so the zone an instance runs in does not matter
+			String row = booking.getId() + "\u0000" + booking.getUserId() + "\u0000" + booking.getUserName() + "\u0000"
+					+ booking.getEventId() + "\u0000" + booking.getEventName() + "\u0000"
+					+ (booking.getDate() == null ? "" : booking.getDate().getTime()) + "\u0000"
+					+ booking.getLocation() + "\u0000" + booking.getVenue() + "\u0001";
+			digest.update(row.getBytes(StandardCharsets.UTF_8));
+		}
+		return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16)) + "\"";
+	}
+
+	private static int stripe(int userId) {
+		return userId & (STRIPES - 1);
+	}
+
+	private void makeRoom(long now) {
+		views.values().removeIf(entry -> entry.expiresAt <= now);
+		int toEvict = views.size() - maxSize + Math.max(1, maxSize / 16);
+		Iterator<Integer> keys = views.keySet().iterator();
+		while (toEvict-- > 0 && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	private static final class Entry {
+		private final UserBookings view;
+		private final long expiresAt;
+
+		private Entry(UserBookings view, long expiresAt) {
+			this.view = view;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
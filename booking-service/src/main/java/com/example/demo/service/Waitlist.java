@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.WaitlistRepository;
+import com.example.demo.util.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-event waitlists. Each event's queue is loaded from the {@code waitlist}
+ * table on first use and kept ordered in memory, so picking the next user is
+ * a lock-free poll. The poll only proposes a candidate: the entry is promoted
+ * once its row is deleted in the cancelling transaction, so two cancellations,
+ * on this instance or another, never promote the same user.
+ */
+@Component
+public class Waitlist {
+
+	private static final Comparator<WaitlistEntry> ORDER = Comparator
+			.comparingInt(WaitlistEntry::getPriority).reversed()
+			.thenComparingInt(WaitlistEntry::getId);
+
+	private final Map<Integer, NavigableSet<WaitlistEntry>> queues = new ConcurrentHashMap<>();
+	private WaitlistRepository waitlistRepository;
+	private BookingRepository bookingRepository;
+	private SeatInventory seatInventory;
+	private BookingOutbox outbox;
+	private int maxSize;
+
+	private Counter promoted;
+	private Counter released;
+
+	public Waitlist(WaitlistRepository waitlistRepository, BookingRepository bookingRepository,
+			SeatInventory seatInventory, BookingOutbox outbox, MeterRegistry registry,
+			@Value("${booking.waitlist.max-size:10000}") int maxSize) {
+		this.waitlistRepository = waitlistRepository;
+		this.bookingRepository = bookingRepository;
+		this.seatInventory = seatInventory;
+		this.outbox = outbox;
+		this.maxSize = maxSize;
+		this.promoted = Counter.builder("booking.waitlist.seats").tag("outcome", "promoted").register(registry);
+		this.released = Counter.builder("booking.waitlist.seats").tag("outcome", "released").register(registry);
+	}
+
+	/**
+	 * Adds the user to the event's waitlist within the caller's transaction.
+	 *
+	 * @return false if the waitlist is full
+	 */
+	public boolean join(int eventId, int userId, String userName, int priority) {
+		NavigableSet<WaitlistEntry> queue = queueFor(eventId);
+		if (waitlistRepository.existsByEventIdAndUserId(eventId, userId)) {
+			return true;
+		}
+		if (queue.size() >= maxSize) {
+			return false;
+		}
+		WaitlistEntry entry = waitlistRepository.saveAndFlush(new WaitlistEntry(0, eventId, userId, userName, priority));
+		TransactionCallbacks.afterCommit(() -> queue.add(entry));
+		return true;
+	}
+
+	public boolean leave(int eventId, int userId) {
+		if (waitlistRepository.deleteByEventIdAndUserId(eventId, userId) == 0) {
+			return false;
+		}
+		TransactionCallbacks.afterCommit(() -> {
+			NavigableSet<WaitlistEntry> queue = queues.get(eventId);
+			if (queue != null) {
+				queue.removeIf(entry -> entry.getUserId() == userId);
+			}
+		});
+		return true;
+	}
+
+	public List<WaitlistEntry> entries(int eventId) {
+		return List.copyOf(queueFor(eventId));
+	}
+
+	/**
+	 * Hands the seat of a cancelled booking to the next waitlisted user, or
+	 * returns it to the inventory when nobody is waiting. Runs in the cancelling
+	 * transaction, so the promotion commits or rolls back with the cancellation.
+	 */
+	public void seatFreed(Booking cancelled) {
+		NavigableSet<WaitlistEntry> queue = queueFor(cancelled.getEventId());
+		boolean reloaded = false;
+		while (true) {
+			WaitlistEntry candidate = queue.pollFirst();
+			if (candidate == null) {
+				if (reloaded) {
+					break;
+				}
+				// users may have joined through another instance
+				queue.addAll(waitlistRepository.findByEventIdOrderByPriorityDescIdAsc(cancelled.getEventId(),
+						Limit.of(maxSize)));
+				reloaded = true;
+				continue;
+			}
+			if (waitlistRepository.claim(candidate.getId()) == 0) {
+				// promoted or removed by another transaction
+				continue;
+			}
+			TransactionCallbacks.afterRollback(() -> queue.add(candidate));
+			if (bookingRepository.findByUserIdAndEventId(candidate.getUserId(), candidate.getEventId()).isPresent()) {
+				continue;
+			}
+			Booking promotedBooking = bookingRepository.save(new Booking(0, candidate.getUserId(),
+					candidate.getUserName(), cancelled.getEventId(), cancelled.getEventName(), cancelled.getDate(),
+					cancelled.getLocation(), cancelled.getVenue()));
+			outbox.created(promotedBooking);
+			promoted.increment();
+			return;
+		}
+		seatInventory.release(cancelled.getEventId(), 1);
+		released.increment();
+	}
+
+	public void removeEvent(int eventId) {
+		waitlistRepository.deleteAllByEventId(eventId);
+		TransactionCallbacks.afterCommit(() -> queues.remove(eventId));
+	}
+
+	private NavigableSet<WaitlistEntry> queueFor(int eventId) {
+		return queues.computeIfAbsent(eventId, id -> {
+			NavigableSet<WaitlistEntry> queue = new ConcurrentSkipListSet<>(ORDER);
+			queue.addAll(waitlistRepository.findByEventIdOrderByPriorityDescIdAsc(id, Limit.of(maxSize)));
+			return queue;
+		});
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.example.demo.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.Event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Local copies of events fetched from event-service. event-service evicts an
+ * event whenever it is updated or deleted; the TTL bounds how stale a copy can
+ * get if such a notification is lost.
+ */
+@Component
+public class EventSnapshotCache {
+
+	private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+	// bumped by every eviction so that a fetch started before it is not cached
+	private final AtomicLong generation = new AtomicLong();
+	private int maxSize;
+	private long ttlMillis;
+
+	private Counter hits;
+	private Counter misses;
+	private Counter invalidations;
+
+	public EventSnapshotCache(@Value("${booking.event-cache.max-size:10000}") int maxSize,
+			@Value("${booking.event-cache.ttl:30s}") Duration ttl, MeterRegistry registry) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttl.toMillis();
+		this.hits = Counter.builder("booking.event.cache.requests").tag("result", "hit").register(registry);
+		this.misses = Counter.builder("booking.event.cache.requests").tag("result", "miss").register(registry);
+		this.invalidations = Counter.builder("booking.event.cache.invalidations").register(registry);
+		Gauge.builder("booking.event.cache.size", entries, Map::size).register(registry);
+	}
+
+	public Event get(int eventId) {
+		Entry entry = entries.get(eventId);
+		if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+			hits.increment();
+			return entry.event;
+		}
+		misses.increment();
+		return null;
+	}
+
+	/**
+	 * Value to pass to {@link #put} for an event fetched after this call.
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	public void put(Event event, long fetchedAtGeneration) {
+		long now = System.currentTimeMillis();
+		if (entries.size() >= maxSize) {
+			makeRoom(now);
+		}
+		entries.put(event.getId(), new Entry(event, now + ttlMillis));
+		// an eviction raced with the fetch, the copy may predate it
+		if (generation.get() != fetchedAtGeneration) {
+			entries.remove(event.getId());
+		}
+	}
+
+	public void invalidate(int eventId) {
+		generation.incrementAndGet();
+		entries.remove(eventId);
+		invalidations.increment();
+	}
+
+	private void makeRoom(long now) {
+		entries.values().removeIf(entry -> entry.expiresAt <= now);
+		int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 16);
+		Iterator<Integer> keys = entries.keySet().iterator();
+		while (toEvict-- > 0 && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	private static final class Entry {
+		private final Event event;
+		private final long expiresAt;
+
+		private Entry(Event event, long expiresAt) {
+			this.event = event;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
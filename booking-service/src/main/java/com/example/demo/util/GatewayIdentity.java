@@ -0,0 +1,83 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the roles from the identity header the api-gateway signs after it has
+ * validated a JWT: {@code base64url(userId|expSeconds|roles|name) + "." +
+ * base64url(HMAC-SHA256)}, the format security-service verifies.
+ *
+ * Headers are only honoured with {@code gateway.identity.trusted=true}, and
+ * then {@code gateway.identity.secret} must hold the gateway's key of at least
+ * 32 bytes or the service does not start. Without it no caller has a role.
+ */
+@Component
+public class GatewayIdentity {
+
+	public static final String HEADER = "X-Authenticated-Identity";
+	public static final String ADMIN = "ROLE_ADMIN";
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int MIN_SECRET_BYTES = 32;
+
+	private final SecretKeySpec key;
+
+	public GatewayIdentity(@Value("${gateway.identity.secret:}") String secret,
+			@Value("${gateway.identity.trusted:false}") boolean trusted) {
+		byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+		if (trusted && secretBytes.length < MIN_SECRET_BYTES) {
+			throw new IllegalStateException("gateway.identity.trusted requires gateway.identity.secret of at least "
+					+ MIN_SECRET_BYTES + " bytes");
+		}
+		this.key = trusted ? new SecretKeySpec(secretBytes, ALGORITHM) : null;
+	}
+
+	/**
+	 * @return false unless the header is genuine, unexpired and lists the role
+	 */
+	public boolean hasRole(String header, String role) {
+		if (key == null || header == null) {
+			return false;
+		}
+		int dot = header.indexOf('.');
+		if (dot <= 0) {
+			return false;
+		}
+		try {
+			Base64.Decoder decoder = Base64.getUrlDecoder();
+			byte[] payload = decoder.decode(header.substring(0, dot));
+			byte[] signature = decoder.decode(header.substring(dot + 1));
+			if (!MessageDigest.isEqual(hmac(payload), signature)) {
+				return false;
+			}
+			String[] fields = new String(payload, StandardCharsets.UTF_8).split("\\|", 4);
+			if (fields.length != 4 || Long.parseLong(fields[1]) * 1000 <= System.currentTimeMillis()) {
+				return false;
+			}
+			return Arrays.stream(fields[2].split(",")).map(String::trim).anyMatch(role::equals);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private byte[] hmac(byte[] payload) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac.doFinal(payload);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to verify identity header", e);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.example.demo.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.exception.RequestInProgressException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the response of requests sent with an {@code Idempotency-Key}
+ * header. A retry with the same key gets the stored response, and a retry that
+ * arrives while the first attempt is still running waits for it, for a
+ * bounded time, instead of running the call a second time. Failed attempts are
+ * forgotten so they can be retried. Keys live for a bounded time and the store
+ * holds a bounded number.
+ */
+@Component
+public class IdempotencyStore {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private int maxSize;
+	private long ttlMillis;
+	private long waitMillis;
+
+	private Counter replayed;
+	private Counter executed;
+	private Counter evictions;
+
+	public IdempotencyStore(@Value("${booking.idempotency.max-size:10000}") int maxSize,
+			@Value("${booking.idempotency.ttl:10m}") Duration ttl,
+			@Value("${booking.idempotency.wait:5s}") Duration wait, MeterRegistry registry) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttl.toMillis();
+		this.waitMillis = wait.toMillis();
+		this.replayed = Counter.builder("booking.idempotency.requests").tag("result", "replayed").register(registry);
+		this.executed = Counter.builder("booking.idempotency.requests").tag("result", "executed").register(registry);
+		this.evictions = Counter.builder("booking.idempotency.evictions").register(registry);
+		Gauge.builder("booking.idempotency.size", entries, Map::size).register(registry);
+	}
+
+	/**
+	 * Returns the response recorded for the key, waiting for it if the first
+	 * attempt is still running. Returns null when the caller now owns the key
+	 * and must follow up with {@link #complete} or {@link #abandon}.
+	 *
+	 * @throws RequestInProgressException if the first attempt is still running
+	 *         after {@code booking.idempotency.wait}
+	 */
+	public String begin(String key) {
+		while (true) {
+			long now = System.currentTimeMillis();
+			Entry fresh = new Entry(now + ttlMillis);
+			Entry existing = entries.putIfAbsent(key, fresh);
+			if (existing == null) {
+				if (entries.size() > maxSize) {
+					makeRoom(now);
+				}
+				executed.increment();
+				return null;
+			}
+			if (existing.expiresAt <= now && existing.result.isDone()) {
+				entries.remove(key, existing);
+				continue;
+			}
+			try {
+				String response = existing.result.get(waitMillis, TimeUnit.MILLISECONDS);
+				replayed.increment();
+				return response;
+			} catch (TimeoutException e) {
+				// a slow first attempt must not pile up request threads behind it
+				throw new RequestInProgressException("A request with this idempotency key is still in progress");
+			} catch (ExecutionException e) {
+				// the first attempt failed and released the key, try to take it over
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for request " + key, e);
+			}
+		}
+	}
+
+	public void complete(String key, String response) {
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			entry.result.complete(response);
+		}
+	}
+
+	/**
+	 * Forgets a failed attempt so that the next retry runs again.
+	 */
+	public void abandon(String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			entry.result.completeExceptionally(new IllegalStateException("Request " + key + " failed"));
+		}
+	}
+
+	private void makeRoom(long now) {
+		entries.values().removeIf(entry -> entry.expiresAt <= now && entry.result.isDone());
+		int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 16);
+		Iterator<Entry> values = entries.values().iterator();
+		while (toEvict > 0 && values.hasNext()) {
+			// in-flight calls stay so that their waiters are not orphaned
+			if (values.next().result.isDone()) {
+				values.remove();
+				evictions.increment();
+				toEvict--;
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+		private final long expiresAt;
+
+		private Entry(long expiresAt) {
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.InternalCallConfig;
+
+/**
+ * Recognises calls from other services of the application by the key in
+ * {@code internal.api-key}, sent in the {@value #HEADER} header. Without a
+ * configured key no caller is recognised.
+ */
+@Component
+public class InternalCallerVerifier {
+
+	public static final String HEADER = InternalCallConfig.HEADER;
+
+	private final byte[] key;
+
+	public InternalCallerVerifier(@Value("${internal.api-key:}") String key) {
+		this.key = key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public boolean verify(String header) {
+		// constant time, so the key cannot be guessed byte by byte
+		return key.length > 0 && header != null
+				&& MessageDigest.isEqual(key, header.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.example.demo.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The booking shard the current thread works on. A transaction takes its
+ * connection when it begins and keeps it until it ends, so the shard has to be
+ * entered before the transaction starts. No shard means the service is not
+ * sharded and the single datasource is used.
+ */
+public final class ShardContext {
+
+	// ids name the shard that created them: id = sequence value * MAX_SHARDS + shard
+	public static final int MAX_SHARDS = 16;
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	public static Integer current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Makes the shard current until the returned scope is closed, then restores
+	 * the previous one.
+	 *
+	 * @throws IllegalStateException if a transaction on another shard is active
+	 */
+	public static Scope enter(int shard) {
+		Integer previous = CURRENT.get();
+		if (!Integer.valueOf(shard).equals(previous) && TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("Cannot switch to shard " + shard + " inside a transaction on shard " + previous);
+		}
+		CURRENT.set(shard);
+		return () -> {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		};
+	}
+
+	public interface Scope extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+}
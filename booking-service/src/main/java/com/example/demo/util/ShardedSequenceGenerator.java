@@ -0,0 +1,41 @@
+package com.example.demo.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+
+/**
+ * Pooled sequence ids for tables that are split across shards. Every shard has
+ * its own sequence, and the value drawn from it is combined with the shard
+ * number, so ids are unique across shards and tell which shard holds the row.
+ * Outside a {@link ShardContext} it is a plain pooled sequence.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+	// a block drawn from one shard's sequence must not be handed out on another
+	private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+	@Override
+	public Object generate(SharedSessionContractImplementor session, Object object) {
+		Integer shard = ShardContext.current();
+		if (shard == null) {
+			return super.generate(session, object);
+		}
+		Class<?> type = getIdentifierType().getReturnedClass();
+		Optimizer optimizer = optimizers.computeIfAbsent(shard, s -> OptimizerFactory.buildOptimizer(
+				StandardOptimizerDescriptor.POOLED, type, getOptimizer().getIncrementSize(),
+				getDatabaseStructure().getInitialValue()));
+		long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+		long id = value * ShardContext.MAX_SHARDS + shard;
+		if (type == Long.class) {
+			return id;
+		}
+		return Math.toIntExact(id);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Starts this service's datasource wiring with and without replicas, against
+ * embedded databases that each name themselves in a one-row table.
+ */
+class ReadReplicaConfigTests {
+
+	// Boot's conversion service reads durations such as 1s, as a running application does
+	private final ApplicationContextRunner runner = new ApplicationContextRunner()
+			.withInitializer(context -> context.getBeanFactory()
+					.setConversionService(ApplicationConversionService.getSharedInstance()))
+			.withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+			.withUserConfiguration(ReadReplicaConfig.class)
+			.withPropertyValues("spring.datasource.url=jdbc:h2:mem:wiring-primary", "spring.datasource.username=sa",
+					"spring.datasource.replica.lag-check-interval=1d");
+
+	@BeforeAll
+	static void createDatabases() {
+		for (String name : new String[] { "wiring-primary", "wiring-replica" }) {
+			JdbcTemplate setup = new JdbcTemplate(
+					new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", ""));
+			setup.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(20))");
+			setup.execute("DELETE FROM origin");
+			setup.update("INSERT INTO origin VALUES (?)", name);
+		}
+	}
+
+	private static String origin(DataSource dataSource, boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transaction.setReadOnly(readOnly);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM origin", String.class));
+	}
+
+	@Test
+	void replicaUrlsRouteReadOnlyTransactions() {
+		runner.withPropertyValues("spring.datasource.replica.urls=jdbc:h2:mem:wiring-replica").run(context -> {
+			DataSource dataSource = context.getBean(DataSource.class);
+			assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+			assertEquals(1, context.getBeansOfType(ReadYourWritesFilter.class).size());
+			assertEquals("wiring-replica", origin(dataSource, true));
+			assertEquals("wiring-primary", origin(dataSource, false));
+			// this thread wrote, and the replica has no heartbeat to show it caught up
+			assertEquals("wiring-primary", origin(dataSource, true));
+		});
+	}
+
+	@Test
+	void withoutReplicasThePlainDataSourceIsUsed() {
+		runner.run(context -> {
+			assertTrue(context.getBeansOfType(ReplicaRoutingDataSource.class).isEmpty());
+			assertTrue(context.getBeansOfType(ReadYourWritesFilter.class).isEmpty());
+			assertEquals("wiring-primary", origin(context.getBean(DataSource.class), true));
+		});
+	}
+
+}
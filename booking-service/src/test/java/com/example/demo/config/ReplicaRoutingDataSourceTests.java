@@ -0,0 +1,172 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the routing against embedded databases that each name themselves in a
+ * one-row table, so every query shows where it was sent. Nothing replicates
+ * between them; {@link #replicate} copies the primary's heartbeat to the
+ * replica to play out a replica catching up.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private static final Duration NO_BACKGROUND_CHECKS = Duration.ofDays(1);
+
+	private ReplicaRoutingDataSource routing;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	private static DataSource database(String name) {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate setup = new JdbcTemplate(dataSource);
+		setup.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(20))");
+		setup.execute("DELETE FROM origin");
+		setup.update("INSERT INTO origin VALUES (?)", name);
+		setup.execute("DROP TABLE IF EXISTS replica_heartbeat");
+		return dataSource;
+	}
+
+	private ReplicaRoutingDataSource route(List<DataSource> replicas) {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(database("primary"), replicas,
+				NO_BACKGROUND_CHECKS, Duration.ofMinutes(1));
+		use(routing);
+		return routing;
+	}
+
+	private void use(ReplicaRoutingDataSource routing) {
+		this.routing = routing;
+		DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+		jdbc = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	private String origin(TransactionTemplate transaction) {
+		return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM origin", String.class));
+	}
+
+	private void write() {
+		readWrite.executeWithoutResult(status -> jdbc.update("UPDATE origin SET name = name"));
+	}
+
+	// the replica applies everything the primary committed up to now
+	private static void replicate(ReplicaRoutingDataSource routing) {
+		routing.checkLag();
+		JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:primary", "sa", ""));
+		JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replica", "sa", ""));
+		replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, written_at BIGINT NOT NULL)");
+		replica.update("MERGE INTO replica_heartbeat KEY (id) VALUES (0, ?)",
+				primary.queryForObject("SELECT written_at FROM replica_heartbeat WHERE id = 0", Long.class));
+		routing.checkLag();
+	}
+
+	private String originInRequest(ReplicaRoutingDataSource routing, String lastWrite, TransactionTemplate transaction,
+			MockHttpServletResponse response) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (lastWrite != null) {
+			request.addHeader(ReadYourWritesFilter.HEADER, lastWrite);
+		}
+		String[] origin = new String[1];
+		new ReadYourWritesFilter(routing).doFilter(request, response, (req, res) -> {
+			if (transaction == readWrite) {
+				write();
+			}
+			origin[0] = origin(transaction);
+		});
+		return origin[0];
+	}
+
+	@BeforeEach
+	void setUp() {
+		route(List.of(database("replica")));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		routing.close();
+	}
+
+	@Test
+	void readOnlyTransactionsUseTheReplica() {
+		assertEquals("replica", origin(readOnly));
+		assertEquals("primary", origin(readWrite));
+		assertEquals("primary", jdbc.queryForObject("SELECT name FROM origin", String.class));
+	}
+
+	@Test
+	void readsStayOnThePrimaryUntilTheReplicaHasTheWrite() throws Exception {
+		replicate(routing);
+		assertEquals("replica", origin(readOnly));
+		write();
+		assertEquals("primary", origin(readOnly));
+		// other threads have not written and still read from the replica
+		String[] elsewhere = new String[1];
+		Thread reader = new Thread(() -> elsewhere[0] = origin(readOnly));
+		reader.start();
+		reader.join();
+		assertEquals("replica", elsewhere[0]);
+
+		replicate(routing);
+		assertEquals("replica", origin(readOnly));
+	}
+
+	@Test
+	void theLastWriteFollowsTheCallerToAnotherInstance() throws Exception {
+		MockHttpServletResponse wrote = new MockHttpServletResponse();
+		assertEquals("primary", originInRequest(routing, null, readWrite, wrote));
+		String lastWrite = wrote.getHeader(ReadYourWritesFilter.HEADER);
+		assertNotNull(lastWrite);
+		routing.close();
+
+		// the same databases seen from a second instance, on a thread that never wrote
+		use(new ReplicaRoutingDataSource(new DriverManagerDataSource("jdbc:h2:mem:primary", "sa", ""),
+				List.of(new DriverManagerDataSource("jdbc:h2:mem:replica", "sa", "")), NO_BACKGROUND_CHECKS,
+				Duration.ofMinutes(1)));
+		MockHttpServletResponse read = new MockHttpServletResponse();
+		assertEquals("primary", originInRequest(routing, lastWrite, readOnly, read));
+		assertNull(read.getHeader(ReadYourWritesFilter.HEADER));
+		assertEquals("replica", originInRequest(routing, null, readOnly, new MockHttpServletResponse()));
+
+		replicate(routing);
+		assertEquals("replica", originInRequest(routing, lastWrite, readOnly, new MockHttpServletResponse()));
+	}
+
+	@Test
+	void unreachableReplicaFallsBackToThePrimary() throws Exception {
+		routing.close();
+		DataSource unreachable = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+		route(List.of(unreachable));
+		assertEquals("primary", origin(readOnly));
+		assertEquals("primary", origin(readOnly));
+	}
+
+	@Test
+	void readsAreSpreadAcrossReplicas() throws Exception {
+		routing.close();
+		route(List.of(database("replica"), database("replica2")));
+		assertEquals(List.of("replica", "replica2", "replica", "replica2"),
+				List.of(origin(readOnly), origin(readOnly), origin(readOnly), origin(readOnly)));
+	}
+
+}
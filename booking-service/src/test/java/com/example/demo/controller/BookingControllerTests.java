@@ -0,0 +1,53 @@
+package com.example.demo.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.demo.dto.UserBookings;
+import com.example.demo.entity.Booking;
+import com.example.demo.service.BookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BookingControllerTests {
+
+	private static final String ETAG = "\"abc\"";
+
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		BookingService bookingService = mock(BookingService.class);
+		when(bookingService.getUserBookings(1)).thenReturn(
+				new UserBookings(List.of(new Booking(16, 1, "user1", 2, "event2", null, "Kolkata", "Hall")), ETAG));
+		mvc = MockMvcBuilders.standaloneSetup(
+				new BookingController(bookingService, null, new ObjectMapper(), null, null, null)).build();
+	}
+
+	@Test
+	void anyMatchingTagAnswersNotModified() throws Exception {
+		for (String ifNoneMatch : List.of(ETAG, "W/" + ETAG, "\"old\", " + ETAG, "*")) {
+			mvc.perform(get("/bookings/user/1").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, ETAG));
+		}
+	}
+
+	@Test
+	void aStaleTagGetsTheBookings() throws Exception {
+		mvc.perform(get("/bookings/user/1").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG));
+	}
+
+}
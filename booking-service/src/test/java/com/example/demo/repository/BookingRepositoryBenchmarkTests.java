@@ -0,0 +1,107 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks that the bookings queries are served by the declared indexes and, when
+ * run with {@code -Dbenchmark=true}, seeds H2 in MySQL mode with
+ * {@code benchmark.rows} bookings (two million by default) and prints the
+ * latency of each repository query.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:bookings;MODE=MySQL",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookingRepositoryBenchmarkTests {
+
+	private static final int EVENTS = 5000;
+	// ten bookings per user, each for a different event
+	private static final int BOOKINGS_PER_USER = 10;
+
+	@Autowired
+	private BookingRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	// ANALYZE commits, so rows outlive the test transaction and are cleared here instead
+	private void seed(int rows) {
+		jdbc.execute("TRUNCATE TABLE bookings");
+		jdbc.update("INSERT INTO bookings (id, user_id, user_name, event_id, event_name, date, location, venue) "
+				+ "SELECT X, X / " + BOOKINGS_PER_USER + ", CONCAT('user', X / " + BOOKINGS_PER_USER + "), X % "
+				+ EVENTS + ", CONCAT('event', X % " + EVENTS + "), CURRENT_DATE, 'Kolkata', 'Hall' "
+				+ "FROM SYSTEM_RANGE(1, " + rows + ")");
+		jdbc.execute("ANALYZE");
+	}
+
+	private String plan(String sql) {
+		return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class)).toLowerCase();
+	}
+
+	@Test
+	void bookingQueriesUseIndexes() {
+		seed(10_000);
+		assertTrue(plan("SELECT * FROM bookings WHERE user_id = 42").contains("uk_bookings_user_event"));
+		assertTrue(plan("SELECT * FROM bookings WHERE user_id = 42 AND event_id = 420").contains("uk_bookings_user_event"));
+		assertTrue(plan("SELECT id FROM bookings WHERE event_id = 7").contains("idx_bookings_event"));
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	void queryLatencies() {
+		int rows = Integer.getInteger("benchmark.rows", 2_000_000);
+		long seedStart = System.nanoTime();
+		seed(rows);
+		System.out.printf("seeded %,d bookings in %,d ms%n", rows, (System.nanoTime() - seedStart) / 1_000_000);
+
+		int users = rows / BOOKINGS_PER_USER;
+		Random random = new Random(42);
+		measure("getByUserId", random, users, id -> repository.getByUserId(id));
+		measure("findByUserIdAndEventId", random, users,
+				id -> repository.findByUserIdAndEventId(id, (id * BOOKINGS_PER_USER + 1) % EVENTS));
+		measure("findBookedUserIds", random, EVENTS,
+				id -> repository.findBookedUserIds(id, List.of(id / BOOKINGS_PER_USER, 1, 2, 3)));
+		measure("findByUserIdOrderByIdAsc", random, users,
+				id -> repository.findByUserIdOrderByIdAsc(id, Limit.of(1000)));
+		measure("deleteByIdIn", random, rows, id -> repository.deleteByIdIn(List.of(id)));
+		measure("deleteChunkByEventId", random, EVENTS, id -> repository.deleteChunkByEventId(id, 100));
+	}
+
+	private void measure(String query, Random random, int bound, IntConsumer call) {
+		int warmup = 200;
+		int iterations = 2000;
+		long[] nanos = new long[iterations];
+		for (int i = 0; i < warmup + iterations; i++) {
+			int id = 1 + random.nextInt(bound - 1);
+			long start = System.nanoTime();
+			call.accept(id);
+			long elapsed = System.nanoTime() - start;
+			if (i >= warmup) {
+				nanos[i - warmup] = elapsed;
+			}
+			entityManager.clear();
+		}
+		Arrays.sort(nanos);
+		System.out.printf("%-26s p50 %8.1f us   p99 %8.1f us%n", query, nanos[iterations / 2] / 1000.0,
+				nanos[iterations * 99 / 100] / 1000.0);
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.dto.BookingTicket;
+import com.example.demo.dto.BookingTicket.State;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.dto.BulkBookingResult.Status;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BookingQueueTests {
+
+	private BookingService bookingService;
+	private BookingQueue queue;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		bookingService = mock(BookingService.class);
+		when(bookingService.createBookings(anyInt(), anyList())).thenAnswer(inv -> inv.<List<Integer>>getArgument(1)
+				.stream().map(userId -> new BulkBookingResult(userId, Status.BOOKED)).toList());
+	}
+
+	@AfterEach
+	void tearDown() {
+		queue.destroy();
+	}
+
+	private BookingQueue start(Duration ticketTtl) {
+		return new BookingQueue(bookingService, new SimpleMeterRegistry(), 100, 2, 10, ticketTtl);
+	}
+
+	private static <T> T await(Supplier<T> value, T expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		T current = value.get();
+		while (!Objects.equals(current, expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			current = value.get();
+		}
+		return current;
+	}
+
+	@Test
+	void finishedTicketsAreKeptForTheirTtl() throws Exception {
+		queue = start(Duration.ofMinutes(10));
+		BookingTicket ticket = queue.submit(1, 10);
+		assertEquals(State.BOOKED, await(() -> queue.status(ticket.getTicket()).getState(), State.BOOKED));
+		// later batches purge only what is due
+		for (int userId = 2; userId <= 50; userId++) {
+			queue.submit(userId, 10);
+		}
+		BookingTicket last = queue.submit(51, 10);
+		await(() -> queue.status(last.getTicket()).getState(), State.BOOKED);
+		assertEquals(State.BOOKED, queue.status(ticket.getTicket()).getState());
+	}
+
+	@Test
+	void expiredTicketsArePurgedOnceFinished() throws Exception {
+		queue = start(Duration.ZERO);
+		List<String> tickets = new ArrayList<>();
+		for (int userId = 1; userId <= 50; userId++) {
+			tickets.add(queue.submit(userId, 10 + userId % 3).getTicket());
+		}
+		for (String ticket : tickets) {
+			assertNull(await(() -> queue.status(ticket), null), ticket);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.util.ShardContext;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Plays out a bookings table that was filled through the old IDENTITY column
+ * before the sequence existed. The sequence is restarted before every test,
+ * as it stands right after the upgrade created it.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:booking-sequence;MODE=MySQL",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingSequenceCheckTests {
+
+	@Autowired
+	private BookingRepository repository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void setUp() {
+		jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("DELETE FROM bookings");
+		jdbc.execute("ALTER SEQUENCE " + BookingSequenceCheck.SEQUENCE + " RESTART WITH 1");
+	}
+
+	private void insertOld(int id) {
+		jdbc.update("INSERT INTO bookings (id, user_id, event_id) VALUES (?, ?, 1)", id, id);
+	}
+
+	private static Booking booking(int userId) {
+		return new Booking(0, userId, "user", 1, "event", null, "Kolkata", "Hall");
+	}
+
+	private void check(BookingShards shards) {
+		new BookingSequenceCheck(dataSource, entityManagerFactory, shards).afterPropertiesSet();
+	}
+
+	@Test
+	void newIdsStartAfterTheOldOnes() {
+		for (int id = 1; id <= 5000; id += 7) {
+			insertOld(id);
+		}
+		check(new BookingShards(null, null, null, null, List.of(), List.of(), 1));
+		int first = repository.saveAndFlush(booking(90001)).getId();
+		assertTrue(first > 4999, "got " + first);
+		// the check is a no-op once the sequence is ahead
+		check(new BookingShards(null, null, null, null, List.of(), List.of(), 1));
+		assertTrue(repository.saveAndFlush(booking(90002)).getId() > first);
+	}
+
+	@Test
+	void shardedIdsStartAfterTheOldOnes() {
+		insertOld(16 * 1000 + 3);
+		BookingShards shards = mock(BookingShards.class);
+		doAnswer(inv -> {
+			try (ShardContext.Scope scope = ShardContext.enter(0)) {
+				inv.<IntConsumer>getArgument(0).accept(0);
+			}
+			return null;
+		}).when(shards).forEachShard(any());
+		check(shards);
+		try (ShardContext.Scope scope = ShardContext.enter(0)) {
+			int id = repository.saveAndFlush(booking(90003)).getId();
+			assertTrue(id > 16 * 1000 + 3, "got " + id);
+			assertEquals(0, id % ShardContext.MAX_SHARDS);
+		}
+	}
+
+}
@@ -0,0 +1,283 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.demo.dto.BookingPage;
+import com.example.demo.dto.BulkBookingResult;
+import com.example.demo.dto.BulkBookingResult.Status;
+import com.example.demo.dto.Event;
+import com.example.demo.dto.User;
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.exception.EventSoldOutException;
+import com.example.demo.util.ShardContext;
+
+/**
+ * Runs the booking service against three embedded databases standing in for
+ * shards, and checks where rows land by querying each database directly.
+ * Every test books its own range of users and events.
+ */
+@SpringBootTest(properties = {
+		"booking.shards.urls=" + BookingShardingTests.SHARD + "0" + BookingShardingTests.MODE + ","
+				+ BookingShardingTests.SHARD + "1" + BookingShardingTests.MODE + ","
+				+ BookingShardingTests.SHARD + "2" + BookingShardingTests.MODE,
+		"booking.shards.pinned=900:2",
+		"spring.datasource.username=sa",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false",
+		"eureka.client.enabled=false",
+		"booking.outbox.poll-interval-ms=60000" })
+class BookingShardingTests {
+
+	static final String SHARD = "jdbc:h2:mem:booking-shard";
+	static final String MODE = ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private BookingShards shards;
+
+	@MockitoBean
+	private DependencyLookups lookups;
+
+	private final Map<Integer, Integer> capacities = new HashMap<>();
+	private final List<JdbcTemplate> databases = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (int shard = 0; shard < 3; shard++) {
+			databases.add(new JdbcTemplate(new DriverManagerDataSource(SHARD + shard + MODE, "sa", "")));
+		}
+		when(lookups.awaitUser(any(), anyInt()))
+				.thenAnswer(inv -> new User(inv.getArgument(1), "user" + inv.getArgument(1), null));
+		when(lookups.awaitEvent(any(), anyInt())).thenAnswer(inv -> {
+			int eventId = inv.getArgument(1);
+			return new Event(eventId, "event" + eventId, null, "Kolkata", "Hall", null, capacities.get(eventId));
+		});
+	}
+
+	private int rows(int shard, String table, int eventId) {
+		return databases.get(shard).queryForObject("SELECT COUNT(*) FROM " + table + " WHERE event_id = ?",
+				Integer.class, eventId);
+	}
+
+	@Test
+	void anEventsRowsLiveOnItsShardOnly() throws Exception {
+		Set<Integer> used = new HashSet<>();
+		for (int eventId = 101; eventId <= 130; eventId++) {
+			for (int userId = 1; userId <= 3; userId++) {
+				bookingService.createBooking(userId, eventId);
+			}
+			int home = shards.shardOfEvent(eventId);
+			used.add(home);
+			// the placement is recorded once, on shard 0
+			assertEquals(1, rows(0, "event_shards", eventId));
+			for (int shard = 0; shard < 3; shard++) {
+				assertEquals(shard == home ? 3 : 0, rows(shard, "bookings", eventId), "event " + eventId);
+				assertEquals(shard == home ? 3 : 0, rows(shard, "booking_outbox", eventId), "event " + eventId);
+			}
+		}
+		assertEquals(Set.of(0, 1, 2), used);
+
+		// a booking id names the shard that holds it
+		for (Booking booking : bookingService.getByUserId(1)) {
+			assertEquals(shards.shardOfEvent(booking.getEventId()), booking.getId() % ShardContext.MAX_SHARDS);
+		}
+	}
+
+	@Test
+	void pinnedEventsGoToTheirShard() throws Exception {
+		bookingService.createBooking(10, 900);
+		assertEquals(1, rows(2, "bookings", 900));
+		assertEquals(0, rows(0, "bookings", 900) + rows(1, "bookings", 900));
+	}
+
+	@Test
+	void userReadsMergeEveryShard() throws Exception {
+		int userId = 50;
+		for (int eventId = 201; eventId <= 240; eventId++) {
+			bookingService.createBooking(userId, eventId);
+			bookingService.createBooking(userId + 1, eventId);
+		}
+		List<Booking> bookings = bookingService.getByUserId(userId);
+		assertEquals(40, bookings.size());
+		List<Integer> ids = bookings.stream().map(Booking::getId).toList();
+		assertEquals(ids.stream().sorted().toList(), ids);
+		assertEquals(40, bookingService.getUserBookings(userId).getBookings().size());
+
+		// keyset pages over all shards visit every booking once, in id order
+		List<Integer> paged = new ArrayList<>();
+		Integer after = 0;
+		while (after != null) {
+			BookingPage page = bookingService.getPage(after, 7);
+			page.getItems().forEach(booking -> paged.add(booking.getId()));
+			after = page.getNextAfter();
+		}
+		List<Integer> all = bookingService.getAll().stream().map(Booking::getId).toList();
+		assertEquals(all, paged);
+		assertTrue(paged.containsAll(ids));
+
+		Booking first = bookings.get(0);
+		assertNotNull(bookingService.getById(first.getId()));
+		bookingService.delete(first.getId());
+		assertNull(bookingService.getById(first.getId()));
+		assertEquals(0, userRows(first.getEventId(), userId));
+
+		bookingService.deleteByUserId(userId);
+		assertTrue(bookingService.getByUserId(userId).isEmpty());
+		assertEquals(40, bookingService.getByUserId(userId + 1).size());
+	}
+
+	@Test
+	void aBookingFromBeforeShardingCanBeReadAndCancelled() throws Exception {
+		// an IDENTITY id on shard 1 that, read as a sharded id, would point at shard 2
+		int id = 5;
+		int eventId = 950;
+		databases.get(1).update("INSERT INTO bookings (id, user_id, user_name, event_id, event_name) "
+				+ "VALUES (?, 90, 'user90', ?, 'event950')", id, eventId);
+		databases.get(0).update("UPDATE legacy_booking_ids SET max_id = ?", id);
+		// as on the first start with the row in place
+		shards.afterPropertiesSet();
+		assertEquals(1, shards.shardOfEvent(eventId));
+
+		Booking booking = bookingService.getById(id);
+		assertNotNull(booking);
+		assertEquals(90, booking.getUserId());
+		bookingService.delete(id);
+		assertNull(bookingService.getById(id));
+		assertEquals(0, rows(1, "bookings", eventId));
+	}
+
+	private int userRows(int eventId, int userId) {
+		return databases.get(shards.shardOfEvent(eventId)).queryForObject(
+				"SELECT COUNT(*) FROM bookings WHERE event_id = ? AND user_id = ?", Integer.class, eventId, userId);
+	}
+
+	@Test
+	void seatsAndWaitlistStayWithTheEvent() throws Exception {
+		int eventId = 301;
+		capacities.put(eventId, 2);
+		bookingService.createBooking(60, eventId);
+		bookingService.createBooking(61, eventId);
+		assertThrows(EventSoldOutException.class, () -> bookingService.createBooking(62, eventId));
+		bookingService.joinWaitlist(62, eventId, 0);
+
+		int home = shards.shardOfEvent(eventId);
+		assertEquals(1, rows(home, "event_inventory", eventId));
+		assertEquals(1, rows(home, "waitlist", eventId));
+
+		bookingService.deleteByUserIdAndEventId(60, eventId);
+		Map<Integer, Integer> holders = bookingService.getAll().stream().filter(b -> b.getEventId() == eventId)
+				.collect(Collectors.toMap(Booking::getUserId, Booking::getEventId));
+		assertEquals(Set.of(61, 62), holders.keySet());
+		assertEquals(0, rows(home, "waitlist", eventId));
+		for (int shard = 0; shard < 3; shard++) {
+			if (shard != home) {
+				assertEquals(0, rows(shard, "bookings", eventId) + rows(shard, "event_inventory", eventId));
+			}
+		}
+	}
+
+	@Test
+	void joiningTheWaitlistWhileSeatsAreLeftBooksOne() throws Exception {
+		int eventId = 302;
+		capacities.put(eventId, 1);
+		bookingService.joinWaitlist(63, eventId, 0);
+		bookingService.joinWaitlist(64, eventId, 0);
+
+		assertEquals(1, userRows(eventId, 63));
+		assertEquals(0, userRows(eventId, 64));
+		assertEquals(List.of(64), bookingService.getWaitlist(eventId).stream().map(WaitlistEntry::getUserId).toList());
+	}
+
+	@Test
+	void bulkRegistrationReportsAnOutcomePerUser() throws Exception {
+		int eventId = 303;
+		capacities.put(eventId, 3);
+		bookingService.createBooking(80, eventId);
+		Map<Integer, User> known = new HashMap<>();
+		for (int userId = 80; userId <= 84; userId++) {
+			known.put(userId, new User(userId, "user" + userId, null));
+		}
+		when(lookups.awaitUsers(any())).thenReturn(known);
+
+		List<BulkBookingResult> results = bookingService.createBookings(eventId, List.of(80, 81, 99, 82, 81, 83, 84));
+
+		assertEquals(List.of(new BulkBookingResult(80, Status.ALREADY_BOOKED), new BulkBookingResult(81, Status.BOOKED),
+				new BulkBookingResult(99, Status.USER_NOT_FOUND), new BulkBookingResult(82, Status.BOOKED),
+				new BulkBookingResult(83, Status.SOLD_OUT), new BulkBookingResult(84, Status.SOLD_OUT)), results);
+		int home = shards.shardOfEvent(eventId);
+		List<Integer> ids = databases.get(home).queryForList("SELECT id FROM bookings WHERE event_id = ?",
+				Integer.class, eventId);
+		assertEquals(3, ids.size());
+		// ids from one batched insert still name the shard
+		ids.forEach(id -> assertEquals(home, id % ShardContext.MAX_SHARDS, "booking " + id));
+		assertEquals(0, databases.get(home).queryForObject(
+				"SELECT remaining FROM event_inventory WHERE event_id = ?", Integer.class, eventId));
+	}
+
+	@Test
+	void purgingAUserWhileOneOfItsBookingsIsCancelledFreesTheSeatOnce() throws Exception {
+		for (int eventId = 401; eventId <= 420; eventId++) {
+			int event = eventId;
+			capacities.put(event, 1);
+			bookingService.createBooking(70, event);
+			bookingService.joinWaitlist(71, event, 0);
+
+			CountDownLatch start = new CountDownLatch(1);
+			ExecutorService pool = Executors.newFixedThreadPool(2);
+			Future<?> cancel = pool.submit(() -> {
+				start.await();
+				return bookingService.deleteByUserIdAndEventId(70, event);
+			});
+			Future<?> purge = pool.submit(() -> {
+				start.await();
+				bookingService.deleteByUserId(70);
+				return null;
+			});
+			start.countDown();
+			// whichever locks the row second waits for the first to commit and then finds it gone
+			for (Future<?> delete : List.of(cancel, purge)) {
+				delete.get(30, TimeUnit.SECONDS);
+			}
+			pool.shutdown();
+
+			// the freed seat went to the waitlisted user and was not also handed back to the inventory
+			int home = shards.shardOfEvent(event);
+			assertEquals(List.of(71), databases.get(home).queryForList(
+					"SELECT user_id FROM bookings WHERE event_id = ?", Integer.class, event), "event " + event);
+			assertEquals(0, databases.get(home).queryForObject(
+					"SELECT remaining FROM event_inventory WHERE event_id = ?", Integer.class, event), "event " + event);
+		}
+	}
+
+}
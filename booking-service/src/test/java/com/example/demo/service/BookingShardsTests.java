@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.entity.EventShard;
+import com.example.demo.entity.LegacyBookingIds;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.EventInventoryRepository;
+import com.example.demo.repository.EventShardRepository;
+import com.example.demo.repository.LegacyBookingIdsRepository;
+import com.example.demo.util.ShardContext;
+
+class BookingShardsTests {
+
+	private static final List<String> THREE_SHARDS = List.of("jdbc:a", "jdbc:b", "jdbc:c");
+
+	// stands in for event_shards on shard 0
+	private final Map<Integer, Integer> recorded = new HashMap<>();
+	// event ids with bookings, by shard
+	private final Map<Integer, List<Integer>> booked = new HashMap<>();
+	// booking ids, by shard
+	private final Map<Integer, List<Integer>> ids = new HashMap<>();
+	// stands in for legacy_booking_ids on shard 0
+	private Integer legacyMaxId;
+	private EventShardRepository directory;
+	private LegacyBookingIdsRepository legacyIds;
+	private BookingRepository bookings;
+	private EventInventoryRepository inventory;
+
+	@BeforeEach
+	void setUp() {
+		directory = mock(EventShardRepository.class);
+		when(directory.findAll()).thenAnswer(inv -> {
+			assertEquals(0, ShardContext.current());
+			return recorded.entrySet().stream().map(entry -> new EventShard(entry.getKey(), entry.getValue())).toList();
+		});
+		when(directory.findById(anyInt())).thenAnswer(inv -> {
+			assertEquals(0, ShardContext.current());
+			return Optional.ofNullable(recorded.get(inv.<Integer>getArgument(0)))
+					.map(shard -> new EventShard(inv.getArgument(0), shard));
+		});
+		when(directory.create(anyInt(), anyInt())).thenAnswer(inv -> {
+			recorded.put(inv.getArgument(0), inv.getArgument(1));
+			return 1;
+		});
+		when(directory.saveAll(any())).thenAnswer(inv -> {
+			List<EventShard> saved = new ArrayList<>();
+			inv.<Iterable<EventShard>>getArgument(0).forEach(assignment -> {
+				recorded.put(assignment.getEventId(), assignment.getShard());
+				saved.add(assignment);
+			});
+			return saved;
+		});
+		legacyIds = mock(LegacyBookingIdsRepository.class);
+		when(legacyIds.findById(LegacyBookingIds.ID)).thenAnswer(inv -> {
+			assertEquals(0, ShardContext.current());
+			return Optional.ofNullable(legacyMaxId).map(maxId -> new LegacyBookingIds(LegacyBookingIds.ID, maxId));
+		});
+		when(legacyIds.create(anyInt())).thenAnswer(inv -> {
+			legacyMaxId = inv.getArgument(0);
+			return 1;
+		});
+		bookings = mock(BookingRepository.class);
+		when(bookings.findEventIds()).thenAnswer(inv -> booked.getOrDefault(ShardContext.current(), List.of()));
+		when(bookings.findMaxId()).thenAnswer(
+				inv -> ids.getOrDefault(ShardContext.current(), List.of()).stream().max(Integer::compare).orElse(0));
+		when(bookings.existsById(anyInt()))
+				.thenAnswer(inv -> ids.getOrDefault(ShardContext.current(), List.of()).contains(inv.getArgument(0)));
+		inventory = mock(EventInventoryRepository.class);
+		when(inventory.findEventIds()).thenReturn(List.of());
+	}
+
+	private BookingShards start(List<String> urls, List<String> pins) {
+		BookingShards shards = new BookingShards(directory, legacyIds, bookings, inventory, urls, pins, 2);
+		shards.afterPropertiesSet();
+		return shards;
+	}
+
+	@Test
+	void placementsOutliveAChangeOfShardCount() {
+		BookingShards two = start(List.of("jdbc:a", "jdbc:b"), List.of());
+		Map<Integer, Integer> placed = new HashMap<>();
+		for (int eventId = 1; eventId <= 50; eventId++) {
+			placed.put(eventId, two.shardOfEvent(eventId));
+		}
+		two.destroy();
+
+		BookingShards three = start(THREE_SHARDS, List.of());
+		placed.forEach((eventId, shard) -> assertEquals(shard, three.shardOfEvent(eventId), "event " + eventId));
+		three.destroy();
+	}
+
+	@Test
+	void eventsWithRowsButNoRecordAreRecordedWhereTheRowsAre() {
+		booked.put(2, List.of(41));
+		BookingShards shards = start(THREE_SHARDS, List.of());
+		assertEquals(2, shards.shardOfEvent(41));
+		assertEquals(2, recorded.get(41));
+		shards.destroy();
+	}
+
+	@Test
+	void refusesToStartWhenRowsAreOffTheRecordedShard() {
+		recorded.put(41, 0);
+		booked.put(1, List.of(41));
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> start(THREE_SHARDS, List.of()));
+		assertTrue(e.getMessage().contains("Event 41"), e.getMessage());
+	}
+
+	@Test
+	void refusesToStartWhenAnEventsRowsAreOnTwoShards() {
+		booked.put(0, List.of(41));
+		booked.put(2, List.of(41));
+		assertThrows(IllegalStateException.class, () -> start(THREE_SHARDS, List.of()));
+	}
+
+	@Test
+	void refusesToStartWhenARecordedShardIsGone() {
+		recorded.put(41, 2);
+		assertThrows(IllegalStateException.class, () -> start(List.of("jdbc:a", "jdbc:b"), List.of()));
+	}
+
+	@Test
+	void refusesAPinThatWouldMoveAnEventWithRows() {
+		booked.put(1, List.of(41));
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> start(THREE_SHARDS, List.of("41:2")));
+		assertTrue(e.getMessage().contains("Cannot pin event 41"), e.getMessage());
+
+		// pinning it where it already is, or pinning an event without rows, is fine
+		start(THREE_SHARDS, List.of("41:1", "42:2")).destroy();
+		BookingShards shards = start(THREE_SHARDS, List.of("41:1", "42:2"));
+		assertEquals(2, shards.shardOfEvent(42));
+		shards.destroy();
+	}
+
+	@Test
+	void idsFromBeforeShardingAreFoundWhereverTheyAre() {
+		// IDENTITY ids, which say nothing about the shard
+		ids.put(0, List.of(3, 7));
+		ids.put(1, List.of(5));
+		BookingShards shards = start(THREE_SHARDS, List.of());
+		assertEquals(7, legacyMaxId);
+		assertEquals(1, shards.shardOfBooking(5));
+		assertEquals(0, shards.shardOfBooking(7));
+		// one that exists nowhere goes where its id points
+		assertEquals(6 % 3, shards.shardOfBooking(6));
+		// later ids name their shard and are not looked up
+		assertEquals(2, shards.shardOfBooking(16 * 40 + 2));
+		shards.destroy();
+
+		// the range is recorded once, not moved by rows written since
+		ids.put(2, List.of(16 * 40 + 2));
+		start(THREE_SHARDS, List.of()).destroy();
+		assertEquals(7, legacyMaxId);
+	}
+
+}
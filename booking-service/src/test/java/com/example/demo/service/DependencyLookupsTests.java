@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.example.demo.dto.User;
+import com.example.demo.exception.DependencyUnavailableException;
+import com.example.demo.feign.EventClient;
+import com.example.demo.feign.UserClient;
+import com.example.demo.util.EventSnapshotCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DependencyLookupsTests {
+
+	private final List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+	private UserClient userClient;
+	private ExecutorService executor;
+	private DependencyLookups lookups;
+
+	@BeforeEach
+	void setUp() {
+		userClient = mock(UserClient.class);
+		// every id but multiples of 100 exists
+		when(userClient.getUsersByIds(anyCollection())).thenAnswer(inv -> {
+			List<Integer> ids = new ArrayList<>(inv.<Collection<Integer>>getArgument(0));
+			calls.add(ids);
+			return ResponseEntity.ok(ids.stream().filter(id -> id % 100 != 0)
+					.map(id -> new User(id, "user" + id, null)).toList());
+		});
+		executor = Executors.newFixedThreadPool(4);
+		lookups = new DependencyLookups(userClient, mock(EventClient.class), executor, new SimpleMeterRegistry(),
+				2000, mock(EventSnapshotCache.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void usersAreLookedUpInBatchesOfFiveHundred() throws Exception {
+		List<Integer> ids = IntStream.rangeClosed(1, 1201).boxed().toList();
+		Map<Integer, User> users = lookups.awaitUsers(lookups.users(ids));
+
+		assertEquals(List.of(500, 500, 201), calls.stream().map(List::size).sorted((a, b) -> b - a).toList());
+		assertEquals(ids, calls.stream().flatMap(List::stream).sorted().toList());
+		assertEquals(1201 - 12, users.size());
+		assertEquals("user1201", users.get(1201).getName());
+	}
+
+	@Test
+	void aFailedBatchFailsTheLookup() {
+		when(userClient.getUsersByIds(anyCollection())).thenAnswer(inv -> {
+			if (inv.<Collection<Integer>>getArgument(0).contains(700)) {
+				throw new IllegalStateException("user-service down");
+			}
+			return ResponseEntity.ok(List.of());
+		});
+		List<Integer> ids = IntStream.rangeClosed(1, 1000).boxed().toList();
+		assertThrows(DependencyUnavailableException.class, () -> lookups.awaitUsers(lookups.users(ids)));
+	}
+
+}
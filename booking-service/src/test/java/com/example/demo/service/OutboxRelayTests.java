@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.repository.OutboxLeaseRepository;
+import com.example.demo.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs two relays, standing in for two booking-service instances, against one
+ * outbox in H2. Records are inserted with explicit ids to play out pooled
+ * sequences committing out of order.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTests {
+
+	@Autowired
+	private OutboxRepository repository;
+
+	@Autowired
+	private OutboxLeaseRepository leases;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private BookingShards shards;
+
+	@BeforeEach
+	void setUp() {
+		jdbc.execute("DELETE FROM booking_outbox");
+		jdbc.execute("DELETE FROM booking_outbox_lease");
+		shards = mock(BookingShards.class);
+		when(shards.count()).thenReturn(1);
+		doAnswer(inv -> {
+			inv.<IntConsumer>getArgument(0).accept(0);
+			return null;
+		}).when(shards).forEachShard(any());
+	}
+
+	private OutboxRelay relay(Duration lease) {
+		return relay(lease, new SimpleMeterRegistry(), 10000);
+	}
+
+	private OutboxRelay relay(Duration lease, MeterRegistry registry, int replayLimit) {
+		return new OutboxRelay(repository, leases, shards, new TransactionTemplate(transactionManager),
+				RestClient.builder(), registry, List.of(), 500, Duration.ofDays(7), lease, replayLimit, 1);
+	}
+
+	private void insert(long id) {
+		jdbc.update("INSERT INTO booking_outbox (id, type, booking_id, user_id, event_id, occurred_at, published) "
+				+ "VALUES (?, 'BOOKING_CREATED', ?, 1, 1, CURRENT_TIMESTAMP, false)", id, id);
+	}
+
+	private List<Long> idsAfter(long position) {
+		return repository.findByPositionGreaterThanOrderByPositionAsc(position, Limit.of(100)).stream()
+				.map(OutboxEvent::getId).toList();
+	}
+
+	@Test
+	void onlyTheLeaseHolderPublishes() {
+		OutboxRelay first = relay(Duration.ofMinutes(1));
+		OutboxRelay second = relay(Duration.ofMinutes(1));
+		insert(1);
+		insert(2);
+		second.relay();
+		first.relay();
+		insert(3);
+		first.relay();
+		// the second relay took the lease first, the first one never publishes
+		assertEquals(List.of(1L, 2L), idsAfter(0));
+		second.relay();
+		assertEquals(List.of(1L, 2L, 3L), idsAfter(0));
+		assertEquals(3, leases.findById(0).orElseThrow().getPosition());
+	}
+
+	@Test
+	void aRecordCommittedAfterAHigherIdResumesAfterIt() {
+		OutboxRelay relay = relay(Duration.ofMinutes(1));
+		// another instance's id block is ahead of this one's
+		insert(100);
+		relay.relay();
+		long seen = repository.findLastPosition();
+		insert(51);
+		relay.relay();
+		assertEquals(List.of(51L), idsAfter(seen));
+	}
+
+	@Test
+	void relaysRacingForTheLeaseGiveEachRecordOnePosition() throws Exception {
+		// a lease that lapses at once lets both relays take it over on every run
+		List<OutboxRelay> relays = List.of(relay(Duration.ZERO), relay(Duration.ZERO));
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		List<Future<?>> runs = new ArrayList<>();
+		for (OutboxRelay relay : relays) {
+			runs.add(pool.submit(() -> {
+				for (int run = 0; run < 50; run++) {
+					relay.relay();
+				}
+			}));
+		}
+		for (long id = 1; id <= 200; id++) {
+			insert(id * 7 % 211);
+		}
+		for (Future<?> run : runs) {
+			run.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+		relays.get(0).relay();
+
+		assertEquals(200, jdbc.queryForObject("SELECT COUNT(DISTINCT position) FROM booking_outbox", Integer.class));
+		assertEquals(200, repository.findLastPosition());
+	}
+
+	@Test
+	void aNewStreamStartsAtTheNewestRecord() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		OutboxRelay relay = relay(Duration.ofMinutes(1), registry, 10000);
+		for (long id = 1; id <= 5; id++) {
+			insert(id);
+		}
+		relay.relay();
+		RecordingEmitter stream = new RecordingEmitter();
+		relay.subscribe(null, stream);
+		while (registry.get("booking.outbox.streams").gauge().value() < 1) {
+			Thread.sleep(10);
+		}
+		insert(6);
+		relay.relay();
+		assertEquals(List.of("6"), stream.ids);
+		relay.destroy();
+	}
+
+	@Test
+	void aStreamFarBehindIsClosedAfterTheReplayLimit() throws Exception {
+		OutboxRelay relay = relay(Duration.ofMinutes(1), new SimpleMeterRegistry(), 3);
+		for (long id = 1; id <= 5; id++) {
+			insert(id);
+		}
+		relay.relay();
+		RecordingEmitter stream = new RecordingEmitter();
+		relay.subscribe("0", stream);
+		assertTrue(stream.completed.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of("1", "2", "3"), stream.ids);
+
+		// reconnecting with the last id picks up the rest
+		RecordingEmitter resumed = new RecordingEmitter();
+		relay.subscribe("3", resumed);
+		while (resumed.ids.size() < 2) {
+			Thread.sleep(10);
+		}
+		assertEquals(List.of("4", "5"), resumed.ids);
+		relay.destroy();
+	}
+
+	// keeps the ids it was sent, as no servlet response is attached
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<String> ids = new CopyOnWriteArrayList<>();
+		private final CountDownLatch completed = new CountDownLatch(1);
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			String event = builder.build().stream().map(data -> data.getData().toString())
+					.reduce("", String::concat);
+			ids.add(event.substring(event.indexOf("id:") + 3, event.indexOf('\n', event.indexOf("id:"))));
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.Event;
+import com.example.demo.repository.EventInventoryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs {@link SeatInventory} against H2 in MySQL mode, with two instances
+ * standing in for two booking-service nodes that share one inventory table
+ * and a connection pool smaller than the number of callers.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:seat-inventory;MODE=MySQL",
+		"spring.datasource.hikari.maximum-pool-size=4",
+		"spring.datasource.hikari.connection-timeout=2000",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatInventoryDatabaseTests {
+
+	@Autowired
+	private EventInventoryRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+	private SeatInventory first;
+	private SeatInventory second;
+
+	@BeforeEach
+	void setUp() {
+		repository.deleteAll();
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		first = new SeatInventory(repository, transactionManager, new SimpleMeterRegistry(), 0);
+		second = new SeatInventory(repository, transactionManager, new SimpleMeterRegistry(), 0);
+	}
+
+	private static Event event(int id, int capacity) {
+		return new Event(id, "event" + id, null, "Kolkata", "Hall", null, capacity);
+	}
+
+	private int remaining(int eventId) {
+		return repository.findRemaining(eventId).orElseThrow();
+	}
+
+	// prepares outside the transaction and reserves inside it, as the booking service does
+	private boolean book(SeatInventory inventory, Event event) {
+		inventory.prepare(event);
+		return transactionTemplate.execute(status -> inventory.reserve(event, 1));
+	}
+
+	private int reserveUpTo(SeatInventory inventory, Event event, int seats) {
+		return transactionTemplate.execute(status -> inventory.reserveUpTo(event, seats));
+	}
+
+	@Test
+	void coldCallersOnTwoNodesNeverOversellOrStarveThePool() throws Exception {
+		Event event = event(1, 10);
+		int callers = 32;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < callers; i++) {
+			SeatInventory inventory = i % 2 == 0 ? first : second;
+			results.add(pool.submit(() -> {
+				start.await();
+				return book(inventory, event);
+			}));
+		}
+		start.countDown();
+		int granted = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(30, TimeUnit.SECONDS)) {
+				granted++;
+			}
+		}
+		pool.shutdown();
+
+		assertEquals(10, granted);
+		assertEquals(0, remaining(1));
+	}
+
+	@Test
+	void reserveUpToHandsOutWhatIsLeftAcrossNodes() {
+		Event event = event(2, 5);
+		first.prepare(event);
+		second.prepare(event);
+		assertEquals(3, reserveUpTo(first, event, 3));
+		// the second node still believes five are left and settles for the two the row has
+		assertEquals(2, reserveUpTo(second, event, 3));
+		assertEquals(0, reserveUpTo(first, event, 3));
+		assertEquals(0, remaining(2));
+	}
+
+	@Test
+	void aRolledBackReservationLeavesTheRowUntouched() {
+		Event event = event(3, 2);
+		first.prepare(event);
+		transactionTemplate.execute(status -> {
+			first.reserve(event, 1);
+			status.setRollbackOnly();
+			return null;
+		});
+		assertEquals(2, remaining(3));
+	}
+
+	@Test
+	void releasingMoreThanWasSoldStopsAtCapacity() {
+		Event event = event(4, 2);
+		assertTrue(book(first, event));
+		transactionTemplate.executeWithoutResult(status -> first.release(4, 5));
+		assertEquals(2, remaining(4));
+		assertTrue(book(second, event));
+		assertTrue(book(first, event));
+		assertFalse(book(second, event));
+	}
+
+}
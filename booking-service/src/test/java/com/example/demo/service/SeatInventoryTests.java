@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.demo.dto.Event;
+import com.example.demo.repository.EventInventoryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SeatInventoryTests {
+
+	private static final int EVENT_ID = 7;
+
+	// stands in for the event_inventory row, updated with the same conditions as the queries
+	private final AtomicInteger row = new AtomicInteger(-1);
+	private final AtomicInteger capacityColumn = new AtomicInteger();
+	private EventInventoryRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(EventInventoryRepository.class);
+		when(repository.findRemaining(anyInt()))
+				.thenAnswer(inv -> row.get() < 0 ? Optional.empty() : Optional.of(row.get()));
+		when(repository.create(anyInt(), anyInt())).thenAnswer(inv -> {
+			capacityColumn.set(inv.getArgument(1));
+			row.compareAndSet(-1, inv.getArgument(1));
+			return 1;
+		});
+		when(repository.reserve(anyInt(), anyInt())).thenAnswer(inv -> {
+			int seats = inv.getArgument(1);
+			while (true) {
+				int current = row.get();
+				if (current < seats) {
+					return 0;
+				}
+				if (row.compareAndSet(current, current - seats)) {
+					return 1;
+				}
+			}
+		});
+		when(repository.release(anyInt(), anyInt())).thenAnswer(inv -> {
+			int seats = inv.getArgument(1);
+			row.accumulateAndGet(seats, (current, added) -> Math.min(current + added, capacityColumn.get()));
+			return 1;
+		});
+	}
+
+	private SeatInventory newInventory() {
+		return new SeatInventory(repository, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 0);
+	}
+
+	private static Event event(Integer capacity) {
+		Event event = new Event();
+		event.setId(EVENT_ID);
+		event.setName("launch");
+		event.setCapacity(capacity);
+		return event;
+	}
+
+	@Test
+	void unlimitedEventsAlwaysGrant() {
+		SeatInventory inventory = newInventory();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(inventory.reserve(event(null), 1));
+		}
+	}
+
+	@Test
+	void releasedSeatsCanBeSoldAgain() {
+		SeatInventory inventory = newInventory();
+		assertTrue(inventory.reserve(event(1), 1));
+		assertFalse(inventory.reserve(event(1), 1));
+		inventory.release(EVENT_ID, 1);
+		assertTrue(inventory.reserve(event(1), 1));
+		// releasing more than was sold fills the event up to its capacity and no further
+		inventory.release(EVENT_ID, 5);
+		assertEquals(1, row.get());
+	}
+
+	@Test
+	void partialReservationsStopAtCapacity() {
+		SeatInventory inventory = newInventory();
+		assertEquals(3, inventory.reserveUpTo(event(10), 3));
+		assertEquals(7, inventory.reserveUpTo(event(10), 50));
+		assertEquals(0, inventory.reserveUpTo(event(10), 1));
+		assertEquals(0, row.get());
+	}
+
+	@Test
+	void hundredsOfThreadsNeverOversell() throws Exception {
+		int capacity = 500;
+		int threads = 400;
+		int attemptsPerThread = 50;
+		// two instances share one row, as two booking-service nodes share the database
+		SeatInventory first = newInventory();
+		SeatInventory second = newInventory();
+		Event event = event(capacity);
+
+		AtomicInteger granted = new AtomicInteger();
+		AtomicInteger refused = new AtomicInteger();
+		AtomicInteger lowest = new AtomicInteger(Integer.MAX_VALUE);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			SeatInventory node = t % 2 == 0 ? first : second;
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < attemptsPerThread; i++) {
+					if (node.reserve(event, 1)) {
+						granted.incrementAndGet();
+					} else {
+						refused.incrementAndGet();
+					}
+					lowest.accumulateAndGet(row.get(), Math::min);
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+		assertEquals(capacity, granted.get());
+		assertEquals(threads * attemptsPerThread - capacity, refused.get());
+		assertEquals(0, row.get());
+		assertTrue(lowest.get() >= 0);
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.repository.BookingRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two views stand in for two booking-service instances reading the same rows.
+ */
+class UserBookingsViewTests {
+
+	private final List<Booking> rows = new ArrayList<>();
+	private BookingRepository repository;
+	private BookingShards shards;
+
+	@BeforeEach
+	void setUp() {
+		rows.add(new Booking(1, 7, "User", 3, "Event", new Date(0), "Kolkata", "Hall"));
+		repository = mock(BookingRepository.class);
+		when(repository.getByUserId(anyInt())).thenAnswer(inv -> List.copyOf(rows));
+		shards = mock(BookingShards.class);
+		when(shards.collect(any(), any())).thenAnswer(inv -> inv.<Supplier<List<Booking>>>getArgument(0).get());
+	}
+
+	private UserBookingsView view() {
+		// no caching, every call reloads
+		return new UserBookingsView(repository, shards, new SimpleMeterRegistry(), 100, Duration.ZERO);
+	}
+
+	@Test
+	void theEtagIsTheSameAcrossReloadsAndInstances() {
+		UserBookingsView first = view();
+		String etag = first.get(7).getEtag();
+		assertEquals(etag, first.get(7).getEtag());
+		assertEquals(etag, view().get(7).getEtag());
+	}
+
+	@Test
+	void theEtagChangesWithTheBookings() {
+		UserBookingsView view = view();
+		String one = view.get(7).getEtag();
+		rows.add(new Booking(2, 7, "User", 4, "Other", new Date(0), "Kolkata", "Hall"));
+		String two = view.get(7).getEtag();
+		assertNotEquals(one, two);
+		rows.get(1).setVenue("Stadium");
+		assertNotEquals(two, view.get(7).getEtag());
+		rows.remove(1);
+		assertEquals(one, view.get(7).getEtag());
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.example.demo.entity.Booking;
+import com.example.demo.entity.WaitlistEntry;
+import com.example.demo.repository.BookingRepository;
+import com.example.demo.repository.WaitlistRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WaitlistTests {
+
+	private static final int EVENT_ID = 3;
+
+	@Test
+	void concurrentCancellationsPromoteEachUserOnce() throws Exception {
+		int waiting = 300;
+		int cancellations = 500;
+
+		// stands in for the waitlist table, a row can be deleted once
+		Map<Integer, WaitlistEntry> rows = new ConcurrentHashMap<>();
+		for (int id = 1; id <= waiting; id++) {
+			// every tenth user has priority and goes first
+			rows.put(id, new WaitlistEntry(id, EVENT_ID, 1000 + id, "user" + id, id % 10 == 0 ? 1 : 0));
+		}
+		WaitlistRepository waitlistRepository = mock(WaitlistRepository.class);
+		when(waitlistRepository.findByEventIdOrderByPriorityDescIdAsc(anyInt(), any(Limit.class)))
+				.thenAnswer(inv -> new ArrayList<>(rows.values()));
+		when(waitlistRepository.claim(anyInt())).thenAnswer(inv -> rows.remove(inv.<Integer>getArgument(0)) == null ? 0 : 1);
+
+		Queue<Integer> promotedUsers = new ConcurrentLinkedQueue<>();
+		BookingRepository bookingRepository = mock(BookingRepository.class);
+		when(bookingRepository.findByUserIdAndEventId(anyInt(), anyInt())).thenReturn(Optional.empty());
+		when(bookingRepository.save(any(Booking.class))).thenAnswer(inv -> {
+			promotedUsers.add(inv.<Booking>getArgument(0).getUserId());
+			return inv.getArgument(0);
+		});
+		SeatInventory seatInventory = mock(SeatInventory.class);
+
+		// two instances over one table, as two booking-service nodes
+		Waitlist first = new Waitlist(waitlistRepository, bookingRepository, seatInventory, mock(BookingOutbox.class), new SimpleMeterRegistry(), 10_000);
+		Waitlist second = new Waitlist(waitlistRepository, bookingRepository, seatInventory, mock(BookingOutbox.class), new SimpleMeterRegistry(), 10_000);
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(64);
+		for (int i = 0; i < cancellations; i++) {
+			Waitlist node = i % 2 == 0 ? first : second;
+			Booking cancelled = new Booking(i, i, "cancelled" + i, EVENT_ID, "finale", null, "Kolkata", "Hall");
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				node.seatFreed(cancelled);
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+		List<Integer> promoted = new ArrayList<>(promotedUsers);
+		assertEquals(waiting, promoted.size());
+		assertEquals(waiting, new HashSet<>(promoted).size());
+		assertTrue(rows.isEmpty());
+		verify(seatInventory, times(cancellations - waiting)).release(EVENT_ID, 1);
+	}
+
+	@Test
+	void priorityGoesBeforeArrivalOrder() {
+		WaitlistRepository waitlistRepository = mock(WaitlistRepository.class);
+		when(waitlistRepository.findByEventIdOrderByPriorityDescIdAsc(anyInt(), any(Limit.class))).thenReturn(List.of(
+				new WaitlistEntry(1, EVENT_ID, 11, "early", 0),
+				new WaitlistEntry(2, EVENT_ID, 12, "vip", 5),
+				new WaitlistEntry(3, EVENT_ID, 13, "late", 0)));
+		Waitlist waitlist = new Waitlist(waitlistRepository, mock(BookingRepository.class), mock(SeatInventory.class), mock(BookingOutbox.class),
+				new SimpleMeterRegistry(), 10_000);
+
+		List<WaitlistEntry> order = waitlist.entries(EVENT_ID);
+		assertEquals(List.of(12, 11, 13), order.stream().map(WaitlistEntry::getUserId).toList());
+	}
+
+}
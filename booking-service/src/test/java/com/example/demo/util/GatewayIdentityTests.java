@@ -0,0 +1,48 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+class GatewayIdentityTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+	// signs as the api-gateway does
+	private static String header(String secret, String roles, long expiresAt) throws Exception {
+		byte[] payload = ("7|" + expiresAt / 1000 + "|" + roles + "|alice").getBytes(StandardCharsets.UTF_8);
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac.doFinal(payload));
+	}
+
+	@Test
+	void onlyAGenuineUnexpiredHeaderGrantsItsRoles() throws Exception {
+		GatewayIdentity identity = new GatewayIdentity(SECRET, true);
+		long later = System.currentTimeMillis() + 60_000;
+		assertTrue(identity.hasRole(header(SECRET, "ROLE_ADMIN", later), GatewayIdentity.ADMIN));
+		assertFalse(identity.hasRole(header(SECRET, "ROLE_USER", later), GatewayIdentity.ADMIN));
+		assertFalse(identity.hasRole(header(SECRET.replace('0', 'x'), "ROLE_ADMIN", later), GatewayIdentity.ADMIN));
+		assertFalse(identity.hasRole(header(SECRET, "ROLE_ADMIN", System.currentTimeMillis() - 1000),
+				GatewayIdentity.ADMIN));
+		assertFalse(identity.hasRole(null, GatewayIdentity.ADMIN));
+	}
+
+	@Test
+	void headersAreIgnoredUnlessTheGatewayIsTrusted() throws Exception {
+		GatewayIdentity identity = new GatewayIdentity(SECRET, false);
+		assertFalse(identity.hasRole(header(SECRET, "ROLE_ADMIN", System.currentTimeMillis() + 60_000),
+				GatewayIdentity.ADMIN));
+		assertThrows(IllegalStateException.class, () -> new GatewayIdentity("short", true));
+	}
+
+}
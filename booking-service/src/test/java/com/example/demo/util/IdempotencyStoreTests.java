@@ -0,0 +1,51 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.exception.RequestInProgressException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyStoreTests {
+
+	private final IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(10), Duration.ofMillis(200),
+			new SimpleMeterRegistry());
+
+	@Test
+	void aRetryGivesUpOnAFirstAttemptThatDoesNotFinish() {
+		assertNull(store.begin("k"));
+		long start = System.nanoTime();
+		assertThrows(RequestInProgressException.class, () -> store.begin("k"));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+		// once the first attempt completes, retries replay its response
+		store.complete("k", "booked");
+		assertEquals("booked", store.begin("k"));
+	}
+
+	@Test
+	void aRetryWaitingForTheFirstAttemptGetsItsResponse() throws Exception {
+		assertNull(store.begin("k"));
+		CompletableFuture<String> retry = CompletableFuture.supplyAsync(() -> store.begin("k"));
+		Thread.sleep(50);
+		store.complete("k", "booked");
+		assertEquals("booked", retry.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void anAbandonedKeyIsTakenOverByTheNextRetry() {
+		assertNull(store.begin("k"));
+		store.abandon("k");
+		assertNull(store.begin("k"));
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.example.demo.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InternalCallerVerifierTests {
+
+	@Test
+	void onlyTheConfiguredKeyIsAccepted() {
+		InternalCallerVerifier verifier = new InternalCallerVerifier("internal-key");
+		assertTrue(verifier.verify("internal-key"));
+		assertFalse(verifier.verify("internal-kez"));
+		assertFalse(verifier.verify(null));
+	}
+
+	@Test
+	void withoutAKeyNoCallerIsInternal() {
+		InternalCallerVerifier verifier = new InternalCallerVerifier("");
+		assertFalse(verifier.verify(""));
+		assertFalse(verifier.verify(null));
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Carries the time of a caller's last write in the {@code X-Last-Write}
+ * header: it is returned on every response that wrote, and a caller that sends
+ * it back has its reads kept off replicas that have not caught up to it, on
+ * whichever instance and thread serves the request.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "X-Last-Write";
+
+	private final ReplicaRoutingDataSource routing;
+
+	public ReadYourWritesFilter(ReplicaRoutingDataSource routing) {
+		this.routing = routing;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		routing.bindCaller(lastWrite(request.getHeader(HEADER)), at -> {
+			if (!response.isCommitted()) {
+				response.setHeader(HEADER, Long.toString(at));
+			}
+		});
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			routing.unbindCaller();
+		}
+	}
+
+	private static long lastWrite(String header) {
+		if (header == null) {
+			return 0;
+		}
+		try {
+			return Math.max(0, Long.parseLong(header.trim()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
@@ -1,7 +1,9 @@
 package com.example.demo.controller;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,13 +13,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.dto.EventPage;
 import com.example.demo.entity.Event;
 import com.example.demo.exception.EventNotFoundException;
 import com.example.demo.service.EventService;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
 
 @RestController
 @RequestMapping("/events")
@@ -51,6 +58,44 @@ public class EventController {
 		return ResponseEntity.ok(event);
 	}
 
+	// search by any combination of location, venue, date range and name keyword
+	@GetMapping("/search")
+	public ResponseEntity<List<Event>> searchEvents(@RequestParam(required = false) String location,
+			@RequestParam(required = false) String venue,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to,
+			@RequestParam(required = false) String keyword, @RequestParam(defaultValue = "100") int limit)
+			throws EventNotFoundException {
+		List<Event> events = eventService.search(location, venue, from, to, keyword, limit);
+		return ResponseEntity.ok(events);
+	}
+
+	// events within radiusKm of a point, nearest first
+	@GetMapping("/near")
+	public ResponseEntity<List<Event>> getEventsNear(@RequestParam @DecimalMin("-90.0") @DecimalMax("90.0") double lat,
+			@RequestParam @DecimalMin("-180.0") @DecimalMax("180.0") double lon,
+			@RequestParam @Positive @DecimalMax("20016.0") double radiusKm,
+			@RequestParam(defaultValue = "100") int limit) throws EventNotFoundException {
+		List<Event> events = eventService.getNear(lat, lon, radiusKm, limit);
+		return ResponseEntity.ok(events);
+	}
+
+	// upcoming events one page at a time, ordered by date then id
+	@GetMapping("/upcoming")
+	public ResponseEntity<EventPage> getUpcomingEvents(
+			@RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate to,
+			@RequestParam(required = false) Long after, @RequestParam(defaultValue = "100") int limit) {
+		return ResponseEntity.ok(eventService.getUpcoming(from, to, after, limit));
+	}
+
+	// autocomplete by the start of a word in the name or location
+	@GetMapping("/suggest")
+	public ResponseEntity<List<Event>> suggestEvents(@RequestParam String q,
+			@RequestParam(defaultValue = "10") int limit) {
+		return ResponseEntity.ok(eventService.suggest(q, limit));
+	}
+
 	// get by Location
 	@GetMapping("/location/{keyword}")
 	public ResponseEntity<List<Event>> getAllEventsByLocation(@PathVariable String keyword)
@@ -84,4 +129,11 @@ public class EventController {
 		return ResponseEntity.ok(response);
 	}
 
+	// reload one event into this instance's catalog, called by the instance that changed it
+	@PutMapping("/catalog/{id}")
+	public ResponseEntity<Void> refreshCatalog(@PathVariable int id) {
+		eventService.refreshCatalog(id);
+		return ResponseEntity.noContent().build();
+	}
+
 }
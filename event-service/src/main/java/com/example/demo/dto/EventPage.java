@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.example.demo.entity.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventPage {
+
+	private List<Event> items;
+
+	// pass as ?after= to get the next page, null on the last page
+	private Long nextAfter;
+
+}
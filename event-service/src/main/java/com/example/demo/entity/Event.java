@@ -1,14 +1,26 @@
 package com.example.demo.entity;
 
+import java.time.LocalDate;
 import java.util.Date;
 
+import org.hibernate.annotations.SourceType;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import com.example.demo.util.EventDays;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -16,7 +28,8 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Data
-@Table(name = "events")
+@Table(name = "events", indexes = { @Index(name = "idx_events_date", columnList = "date"),
+		@Index(name = "idx_events_updated_at", columnList = "updated_at") })
 @AllArgsConstructor
 @NoArgsConstructor
 public class Event {
@@ -33,4 +46,41 @@ public class Event {
 	private String venue;
 	@NotEmpty(message = "provide a brief description")
 	private String description;
+	// number of seats on sale, null for an event without a limit
+	@Min(value = 1, message = "capacity must be at least 1")
+	private Integer capacity;
+	// where the event takes place, both or neither; events without them are not found by distance
+	@DecimalMin(value = "-90.0", message = "latitude must be between -90 and 90")
+	@DecimalMax(value = "90.0", message = "latitude must be between -90 and 90")
+	private Double latitude;
+	@DecimalMin(value = "-180.0", message = "longitude must be between -180 and 180")
+	@DecimalMax(value = "180.0", message = "longitude must be between -180 and 180")
+	private Double longitude;
+	// set from the database clock on every write, so catalogs on all instances can pick up what changed
+	@UpdateTimestamp(source = SourceType.DB)
+	@JsonIgnore
+	private Date updatedAt;
+
+	public Event(int id, String name, Date date, String location, String venue, String description) {
+		this(id, name, date, location, venue, description, null);
+	}
+
+	public Event(int id, String name, Date date, String location, String venue, String description,
+			Integer capacity) {
+		this(id, name, date, location, venue, description, capacity, null, null);
+	}
+
+	public Event(int id, String name, Date date, String location, String venue, String description,
+			Integer capacity, Double latitude, Double longitude) {
+		this(id, name, date, location, venue, description, capacity, latitude, longitude, null);
+	}
+
+	// stored as the start of its day, so ordering by date orders as EventCatalog.rank does
+	@PrePersist
+	@PreUpdate
+	void startOfDay() {
+		if (date != null) {
+			date = EventDays.startOf(LocalDate.ofEpochDay(EventDays.day(date)));
+		}
+	}
 }
@@ -0,0 +1,465 @@
+package com.example.demo.index;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A set of non-negative ints kept as compressed bitmap, in the manner of
+ * Roaring: values are split by their high 16 bits into chunks, and each chunk
+ * is a sorted array of its low 16 bits while it holds at most 4096 of them, or
+ * a 65536-bit bitset once it holds more. Sparse attributes cost two bytes per
+ * event and dense ones one bit, and intersections work chunk by chunk.
+ *
+ * Not thread-safe, {@link EventCatalog} guards it.
+ */
+class CompressedBitmap {
+
+	private static final Container[] NO_CONTAINERS = new Container[0];
+
+	private char[] keys = new char[0];
+	private Container[] containers = NO_CONTAINERS;
+	private int cardinality;
+
+	static CompressedBitmap of(int[] values) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+
+	void add(int value) {
+		char key = (char) (value >>> 16);
+		int at = Arrays.binarySearch(keys, key);
+		if (at < 0) {
+			at = -at - 1;
+			insert(at, key, new ArrayContainer());
+		}
+		Container container = containers[at];
+		int before = container.cardinality();
+		containers[at] = container.add((char) value);
+		cardinality += containers[at].cardinality() - before;
+	}
+
+	void remove(int value) {
+		int at = Arrays.binarySearch(keys, (char) (value >>> 16));
+		if (at < 0) {
+			return;
+		}
+		Container container = containers[at];
+		int before = container.cardinality();
+		Container after = container.remove((char) value);
+		cardinality -= before - after.cardinality();
+		if (after.cardinality() == 0) {
+			delete(at);
+		} else {
+			containers[at] = after;
+		}
+	}
+
+	boolean contains(int value) {
+		int at = Arrays.binarySearch(keys, (char) (value >>> 16));
+		return at >= 0 && containers[at].contains((char) value);
+	}
+
+	int cardinality() {
+		return cardinality;
+	}
+
+	boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * The values in both bitmaps.
+	 */
+	CompressedBitmap and(CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < keys.length && j < other.keys.length) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Container both = containers[i].and(other.containers[j]);
+				if (both.cardinality() > 0) {
+					result.append(keys[i], both);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The values in any of the bitmaps.
+	 */
+	static CompressedBitmap or(List<CompressedBitmap> bitmaps) {
+		CompressedBitmap result = new CompressedBitmap();
+		for (CompressedBitmap bitmap : bitmaps) {
+			for (int i = 0; i < bitmap.keys.length; i++) {
+				int at = Arrays.binarySearch(result.keys, bitmap.keys[i]);
+				if (at < 0) {
+					result.insert(-at - 1, bitmap.keys[i], bitmap.containers[i].copy());
+				} else {
+					result.containers[at] = result.containers[at].or(bitmap.containers[i]);
+				}
+			}
+		}
+		result.cardinality = 0;
+		for (Container container : result.containers) {
+			result.cardinality += container.cardinality();
+		}
+		return result;
+	}
+
+	/**
+	 * The values in increasing order, at most {@code limit} of them.
+	 */
+	int[] toArray(int limit) {
+		int[] values = new int[Math.min(limit, cardinality)];
+		int filled = 0;
+		for (int i = 0; i < keys.length && filled < values.length; i++) {
+			filled = containers[i].copyTo(keys[i] << 16, values, filled);
+		}
+		return values;
+	}
+
+	/**
+	 * Hands the values to the action in increasing order until it returns false.
+	 */
+	void forEach(IntPredicate action) {
+		for (int i = 0; i < keys.length; i++) {
+			if (!containers[i].forEach(keys[i] << 16, action)) {
+				return;
+			}
+		}
+	}
+
+	private void insert(int at, char key, Container container) {
+		char[] grownKeys = new char[keys.length + 1];
+		Container[] grownContainers = new Container[containers.length + 1];
+		System.arraycopy(keys, 0, grownKeys, 0, at);
+		System.arraycopy(containers, 0, grownContainers, 0, at);
+		System.arraycopy(keys, at, grownKeys, at + 1, keys.length - at);
+		System.arraycopy(containers, at, grownContainers, at + 1, containers.length - at);
+		grownKeys[at] = key;
+		grownContainers[at] = container;
+		keys = grownKeys;
+		containers = grownContainers;
+	}
+
+	private void append(char key, Container container) {
+		insert(keys.length, key, container);
+		cardinality += container.cardinality();
+	}
+
+	private void delete(int at) {
+		char[] shrunkKeys = new char[keys.length - 1];
+		Container[] shrunkContainers = new Container[containers.length - 1];
+		System.arraycopy(keys, 0, shrunkKeys, 0, at);
+		System.arraycopy(containers, 0, shrunkContainers, 0, at);
+		System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+		System.arraycopy(containers, at + 1, shrunkContainers, at, containers.length - at - 1);
+		keys = shrunkKeys;
+		containers = shrunkContainers;
+	}
+
+	private abstract static class Container {
+
+		// past this many values a bitset is smaller than the array
+		static final int ARRAY_LIMIT = 4096;
+
+		abstract Container add(char low);
+
+		abstract Container remove(char low);
+
+		abstract boolean contains(char low);
+
+		abstract int cardinality();
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract Container copy();
+
+		// writes high | low for each value into values from index at, stopping when full
+		abstract int copyTo(int high, int[] values, int at);
+
+		// false once the action has asked to stop
+		abstract boolean forEach(int high, IntPredicate action);
+
+	}
+
+	private static final class ArrayContainer extends Container {
+
+		private char[] lows;
+		private int size;
+
+		ArrayContainer() {
+			this(new char[4], 0);
+		}
+
+		ArrayContainer(char[] lows, int size) {
+			this.lows = lows;
+			this.size = size;
+		}
+
+		@Override
+		Container add(char low) {
+			int at = Arrays.binarySearch(lows, 0, size, low);
+			if (at >= 0) {
+				return this;
+			}
+			if (size == ARRAY_LIMIT) {
+				return toBitset().add(low);
+			}
+			at = -at - 1;
+			if (size == lows.length) {
+				lows = Arrays.copyOf(lows, Math.min(ARRAY_LIMIT, Math.max(4, size * 2)));
+			}
+			System.arraycopy(lows, at, lows, at + 1, size - at);
+			lows[at] = low;
+			size++;
+			return this;
+		}
+
+		@Override
+		Container remove(char low) {
+			int at = Arrays.binarySearch(lows, 0, size, low);
+			if (at >= 0) {
+				System.arraycopy(lows, at + 1, lows, at, size - at - 1);
+				size--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char low) {
+			return Arrays.binarySearch(lows, 0, size, low) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return size;
+		}
+
+		@Override
+		Container and(Container other) {
+			char[] both = new char[size];
+			int count = 0;
+			if (other instanceof ArrayContainer array) {
+				int i = 0;
+				int j = 0;
+				while (i < size && j < array.size) {
+					if (lows[i] < array.lows[j]) {
+						i++;
+					} else if (lows[i] > array.lows[j]) {
+						j++;
+					} else {
+						both[count++] = lows[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < size; i++) {
+					if (other.contains(lows[i])) {
+						both[count++] = lows[i];
+					}
+				}
+			}
+			return new ArrayContainer(both, count);
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof BitsetContainer) {
+				return other.or(this);
+			}
+			ArrayContainer array = (ArrayContainer) other;
+			char[] either = new char[size + array.size];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < size || j < array.size) {
+				char next;
+				if (j == array.size || (i < size && lows[i] < array.lows[j])) {
+					next = lows[i++];
+				} else if (i == size || array.lows[j] < lows[i]) {
+					next = array.lows[j++];
+				} else {
+					next = lows[i++];
+					j++;
+				}
+				either[count++] = next;
+			}
+			ArrayContainer merged = new ArrayContainer(either, count);
+			return count > ARRAY_LIMIT ? merged.toBitset() : merged;
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(lows, size), size);
+		}
+
+		@Override
+		int copyTo(int high, int[] values, int at) {
+			for (int i = 0; i < size && at < values.length; i++) {
+				values[at++] = high | lows[i];
+			}
+			return at;
+		}
+
+		@Override
+		boolean forEach(int high, IntPredicate action) {
+			for (int i = 0; i < size; i++) {
+				if (!action.test(high | lows[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private BitsetContainer toBitset() {
+			BitsetContainer bitset = new BitsetContainer();
+			for (int i = 0; i < size; i++) {
+				bitset.add(lows[i]);
+			}
+			return bitset;
+		}
+
+	}
+
+	private static final class BitsetContainer extends Container {
+
+		private final long[] words;
+		private int cardinality;
+
+		BitsetContainer() {
+			this(new long[1024], 0);
+		}
+
+		private BitsetContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char low) {
+			long bit = 1L << low;
+			if ((words[low >>> 6] & bit) == 0) {
+				words[low >>> 6] |= bit;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char low) {
+			long bit = 1L << low;
+			if ((words[low >>> 6] & bit) != 0) {
+				words[low >>> 6] &= ~bit;
+				cardinality--;
+			}
+			return cardinality > ARRAY_LIMIT ? this : toArray();
+		}
+
+		@Override
+		boolean contains(char low) {
+			return (words[low >>> 6] & (1L << low)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			long[] both = new long[1024];
+			long[] theirs = ((BitsetContainer) other).words;
+			int count = 0;
+			for (int i = 0; i < both.length; i++) {
+				both[i] = words[i] & theirs[i];
+				count += Long.bitCount(both[i]);
+			}
+			BitsetContainer result = new BitsetContainer(both, count);
+			return count > ARRAY_LIMIT ? result : result.toArray();
+		}
+
+		@Override
+		Container or(Container other) {
+			long[] either = words.clone();
+			if (other instanceof ArrayContainer array) {
+				for (int i = 0; i < array.size; i++) {
+					either[array.lows[i] >>> 6] |= 1L << array.lows[i];
+				}
+			} else {
+				long[] theirs = ((BitsetContainer) other).words;
+				for (int i = 0; i < either.length; i++) {
+					either[i] |= theirs[i];
+				}
+			}
+			int count = 0;
+			for (long word : either) {
+				count += Long.bitCount(word);
+			}
+			return new BitsetContainer(either, count);
+		}
+
+		@Override
+		Container copy() {
+			return new BitsetContainer(words.clone(), cardinality);
+		}
+
+		@Override
+		int copyTo(int high, int[] values, int at) {
+			for (int i = 0; i < words.length && at < values.length; i++) {
+				long word = words[i];
+				while (word != 0 && at < values.length) {
+					values[at++] = high | (i << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			return at;
+		}
+
+		@Override
+		boolean forEach(int high, IntPredicate action) {
+			for (int i = 0; i < words.length; i++) {
+				long word = words[i];
+				while (word != 0) {
+					if (!action.test(high | (i << 6) + Long.numberOfTrailingZeros(word))) {
+						return false;
+					}
+					word &= word - 1;
+				}
+			}
+			return true;
+		}
+
+		private ArrayContainer toArray() {
+			char[] lows = new char[cardinality];
+			int count = 0;
+			for (int i = 0; i < words.length; i++) {
+				long word = words[i];
+				while (word != 0) {
+					lows[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			return new ArrayContainer(lows, count);
+		}
+
+	}
+
+}
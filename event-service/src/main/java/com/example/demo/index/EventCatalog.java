@@ -0,0 +1,462 @@
+package com.example.demo.index;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.Event;
+import com.example.demo.repository.EventRepo;
+import com.example.demo.util.EventDays;
+
+/**
+ * In-memory copy of every event together with the indexes that answer
+ * searches without a query to MySQL. It is loaded page by page once the
+ * application is up and kept current by {@code EventServiceImpl}; until the
+ * load has finished {@link #isReady()} is false and callers use the database.
+ * Searches share a read lock, changes take the write lock, as does a
+ * suggestion that has to rebuild part of the trie. Upcoming events are read
+ * from a skip list without the lock.
+ *
+ * A change this instance was not told about, such as a refresh call from a
+ * peer that failed, is picked up by {@link #reconcile()}, which runs every
+ * {@code event.catalog.reconcile-interval-ms}.
+ */
+@Component
+public class EventCatalog {
+
+	private static final Logger logger = LoggerFactory.getLogger(EventCatalog.class);
+
+	private final Map<Integer, Event> events = new HashMap<>();
+	private final TrigramIndex names = new TrigramIndex();
+	private final PrefixTrie suggestions = new PrefixTrie();
+	// per-attribute bitmaps over event ids, intersected by search
+	private final CompressedBitmap all = new CompressedBitmap();
+	private final Map<String, CompressedBitmap> byLocation = new HashMap<>();
+	private final Map<String, CompressedBitmap> byVenue = new HashMap<>();
+	private final NavigableMap<Long, CompressedBitmap> byDay = new TreeMap<>();
+	private final GeoGrid places = new GeoGrid();
+	// events from today on by rank, read without the lock; past days are dropped nightly
+	private final ConcurrentNavigableMap<Long, Event> upcoming = new ConcurrentSkipListMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// ids changed while the load runs, whose loaded copy may be older than the catalog's
+	private Set<Integer> changedDuringLoad = new HashSet<>();
+	private volatile boolean ready;
+	// newest updatedAt read from the table, null until a row that has one is seen
+	private volatile Date watermark;
+
+	private EventRepo repo;
+	private int pageSize;
+	private long lookbackMillis;
+
+	public EventCatalog(EventRepo repo, @Value("${event.catalog.page-size:5000}") int pageSize,
+			@Value("${event.catalog.reconcile-lookback:1m}") Duration lookback) {
+		this.repo = repo;
+		this.pageSize = pageSize;
+		this.lookbackMillis = lookback.toMillis();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		long started = System.currentTimeMillis();
+		int after = 0;
+		List<Event> page;
+		do {
+			page = repo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize));
+			List<Event> loaded = page;
+			write(() -> {
+				for (Event event : loaded) {
+					if (!changedDuringLoad.contains(event.getId())) {
+						index(copy(event));
+					}
+				}
+			});
+			loaded.forEach(event -> advanceWatermark(event.getUpdatedAt()));
+			if (!page.isEmpty()) {
+				after = page.get(page.size() - 1).getId();
+			}
+		} while (page.size() == pageSize);
+		write(() -> {
+			changedDuringLoad = null;
+			ready = true;
+		});
+		logger.info("Loaded {} events into the catalog in {} ms", size(), System.currentTimeMillis() - started);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return events.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the event, or replaces the catalog's copy of it.
+	 */
+	public void put(Event event) {
+		Event stored = copy(event);
+		write(() -> {
+			noteChange(stored.getId());
+			unindex(stored.getId());
+			index(stored);
+		});
+	}
+
+	public void remove(int id) {
+		write(() -> {
+			noteChange(id);
+			unindex(id);
+		});
+	}
+
+	/**
+	 * Events whose name contains the keyword, ignoring case, in id order.
+	 */
+	public List<Event> findByName(String keyword) {
+		lock.readLock().lock();
+		try {
+			return resolve(names.search(keyword));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Events matching every criterion given, in id order: location and venue
+	 * equal ignoring case, date within the range, both ends included, and name
+	 * containing the keyword ignoring case. Null criteria are left out.
+	 */
+	public List<Event> search(String location, String venue, LocalDate from, LocalDate to, String keyword,
+			int limit) {
+		if (limit <= 0) {
+			return List.of();
+		}
+		lock.readLock().lock();
+		try {
+			List<CompressedBitmap> criteria = new ArrayList<>();
+			if (location != null) {
+				criteria.add(byLocation.getOrDefault(normalize(location), new CompressedBitmap()));
+			}
+			if (venue != null) {
+				criteria.add(byVenue.getOrDefault(normalize(venue), new CompressedBitmap()));
+			}
+			if (from != null || to != null) {
+				long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+				long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+				criteria.add(first > last ? new CompressedBitmap()
+						: CompressedBitmap.or(new ArrayList<>(byDay.subMap(first, true, last, true).values())));
+			}
+			// smallest first, so every intersection is at most as large as it
+			criteria.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+			CompressedBitmap matches = criteria.isEmpty() ? all : criteria.get(0);
+			for (int i = 1; i < criteria.size() && !matches.isEmpty(); i++) {
+				matches = matches.and(criteria.get(i));
+			}
+			if (keyword != null) {
+				if (criteria.isEmpty()) {
+					matches = CompressedBitmap.of(names.search(keyword));
+				} else if (names.estimate(keyword) < matches.cardinality() / 8) {
+					matches = matches.and(CompressedBitmap.of(names.search(keyword)));
+				} else {
+					// the other criteria are narrower, check names in id order until the page is full
+					List<Event> found = new ArrayList<>();
+					matches.forEach(id -> {
+						if (names.matches(id, keyword)) {
+							found.add(events.get(id));
+						}
+						return found.size() < limit;
+					});
+					return found;
+				}
+			}
+			return resolve(matches.toArray(limit));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Events dated within the range, both ends included and none before today,
+	 * ordered by date then id. A page starts after the event whose
+	 * {@link #rank(Event)} is {@code after}, when given.
+	 */
+	public List<Event> upcoming(LocalDate from, LocalDate to, Long after, int limit) {
+		long start = Math.max(today(), from == null ? Long.MIN_VALUE : from.toEpochDay() << 32);
+		if (after != null && after >= start) {
+			start = after + 1;
+		}
+		NavigableMap<Long, Event> range = to == null ? upcoming.tailMap(start, true)
+				: start >= (to.toEpochDay() + 1) << 32 ? Collections.emptyNavigableMap()
+						: upcoming.subMap(start, true, (to.toEpochDay() + 1) << 32, false);
+		return range.values().stream().limit(Math.max(limit, 0)).toList();
+	}
+
+	@Scheduled(cron = "${event.catalog.expiry-cron:0 0 0 * * *}")
+	public void expirePast() {
+		upcoming.headMap(today()).clear();
+	}
+
+	/**
+	 * Reloads the rows written since shortly before the newest change seen, as
+	 * a transaction stamped earlier may commit later, then compares ids with
+	 * the table to drop deleted events and add any that were missed. It reads
+	 * in a read-write transaction, which keeps it on the primary, so a lagging
+	 * replica cannot make a new event look deleted.
+	 */
+	@Scheduled(fixedDelayString = "${event.catalog.reconcile-interval-ms:60000}",
+			initialDelayString = "${event.catalog.reconcile-interval-ms:60000}")
+	@Transactional
+	public void reconcile() {
+		if (!ready) {
+			return;
+		}
+		Date seen = watermark;
+		List<Event> changed = repo.findByUpdatedAtGreaterThanEqual(
+				seen == null ? new Date(0) : new Date(seen.getTime() - lookbackMillis));
+		for (Event event : changed) {
+			put(event);
+			advanceWatermark(event.getUpdatedAt());
+		}
+		// ids added after this snapshot are newer than the id scan and must not be dropped
+		Set<Integer> known = ids();
+		Set<Integer> stored = new HashSet<>(repo.findIds());
+		List<Integer> deleted = known.stream().filter(id -> !stored.contains(id)).toList();
+		deleted.forEach(this::remove);
+		stored.removeAll(ids());
+		List<Event> missed = repo.findAllById(stored);
+		missed.forEach(this::put);
+		if (!deleted.isEmpty() || !missed.isEmpty()) {
+			logger.info("Catalog reconciled: {} changed, {} deleted, {} missed", changed.size(), deleted.size(),
+					missed.size());
+		}
+	}
+
+	/**
+	 * Events with coordinates within {@code radiusKm} of the point, nearest
+	 * first.
+	 */
+	public List<Event> near(double lat, double lon, double radiusKm, int limit) {
+		lock.readLock().lock();
+		try {
+			return resolve(places.near(lat, lon, radiusKm, Math.max(limit, 0)));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Events not yet past with a word of their name or location starting with
+	 * the prefix, ignoring case, soonest first; events without a date come last.
+	 */
+	public List<Event> suggest(String prefix, int limit) {
+		String normalized = normalize(prefix).strip();
+		int count = Math.min(limit, PrefixTrie.CAPACITY);
+		if (normalized.isEmpty() || count <= 0) {
+			return List.of();
+		}
+		long floor = today();
+		if (normalized.length() > PrefixTrie.MAX_DEPTH) {
+			// the trie only knows the first MAX_DEPTH characters, the rest is checked here
+			lock.readLock().lock();
+			try {
+				return Arrays.stream(suggestions.all(normalized, floor)).mapToObj(rank -> events.get((int) rank))
+						.filter(event -> suggestionKeys(event, Integer.MAX_VALUE).stream()
+								.anyMatch(key -> key.startsWith(normalized)))
+						.limit(count).toList();
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+		lock.readLock().lock();
+		try {
+			long[] ranks = suggestions.top(normalized, count, floor);
+			if (ranks != null) {
+				return resolve(ranks);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		lock.writeLock().lock();
+		try {
+			return resolve(suggestions.rebuild(normalized, count, floor));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private List<Event> resolve(long[] ranks) {
+		List<Event> found = new ArrayList<>(ranks.length);
+		for (long rank : ranks) {
+			found.add(events.get((int) rank));
+		}
+		return found;
+	}
+
+	private List<Event> resolve(int[] ids) {
+		List<Event> found = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			found.add(events.get(id));
+		}
+		return found;
+	}
+
+	private void index(Event event) {
+		events.put(event.getId(), event);
+		names.add(event.getId(), event.getName());
+		all.add(event.getId());
+		byLocation.computeIfAbsent(normalize(event.getLocation()), l -> new CompressedBitmap()).add(event.getId());
+		byVenue.computeIfAbsent(normalize(event.getVenue()), v -> new CompressedBitmap()).add(event.getId());
+		Long day = day(event);
+		if (day != null) {
+			byDay.computeIfAbsent(day, d -> new CompressedBitmap()).add(event.getId());
+		}
+		long rank = rank(event);
+		for (String key : suggestionKeys(event, PrefixTrie.MAX_DEPTH)) {
+			suggestions.add(key, rank);
+		}
+		if (day != null && rank >= today()) {
+			upcoming.put(rank, event);
+		}
+		if (event.getLatitude() != null && event.getLongitude() != null) {
+			places.add(event.getId(), event.getLatitude(), event.getLongitude());
+		}
+	}
+
+	private void unindex(int id) {
+		Event event = events.remove(id);
+		if (event != null) {
+			names.remove(id);
+			all.remove(id);
+			unindex(byLocation, normalize(event.getLocation()), id);
+			unindex(byVenue, normalize(event.getVenue()), id);
+			Long day = day(event);
+			if (day != null) {
+				unindex(byDay, day, id);
+			}
+			long rank = rank(event);
+			for (String key : suggestionKeys(event, PrefixTrie.MAX_DEPTH)) {
+				suggestions.remove(key, rank);
+			}
+			upcoming.remove(rank);
+			places.remove(id);
+		}
+	}
+
+	private static <K> void unindex(Map<K, CompressedBitmap> bitmaps, K key, int id) {
+		CompressedBitmap bitmap = bitmaps.get(key);
+		if (bitmap != null) {
+			bitmap.remove(id);
+			if (bitmap.isEmpty()) {
+				bitmaps.remove(key);
+			}
+		}
+	}
+
+	// the event's day in EventDays.ZONE, which is how its date was read
+	private static Long day(Event event) {
+		return event.getDate() == null ? null : EventDays.day(event.getDate());
+	}
+
+	// the lowest rank of today
+	private static long today() {
+		return EventDays.today().toEpochDay() << 32;
+	}
+
+	/**
+	 * Orders events by day, then id: the day is kept in the high half and the
+	 * id in the low half. Events without a date come after all others.
+	 */
+	public static long rank(Event event) {
+		Long day = day(event);
+		return (day == null ? Integer.MAX_VALUE : day) << 32 | event.getId();
+	}
+
+	// the name and location from the start of each of their words, cut to length
+	private static Set<String> suggestionKeys(Event event, int length) {
+		Set<String> keys = new HashSet<>();
+		for (String text : new String[] { event.getName(), event.getLocation() }) {
+			String normalized = normalize(text);
+			for (int i = 0; i < normalized.length(); i++) {
+				boolean wordStart = Character.isLetterOrDigit(normalized.charAt(i))
+						&& (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)));
+				if (wordStart) {
+					keys.add(normalized.substring(i, Math.min(normalized.length(), i + length)));
+				}
+			}
+		}
+		return keys;
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	private Set<Integer> ids() {
+		lock.readLock().lock();
+		try {
+			return new HashSet<>(events.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void advanceWatermark(Date updatedAt) {
+		if (updatedAt != null && (watermark == null || updatedAt.after(watermark))) {
+			watermark = updatedAt;
+		}
+	}
+
+	private void noteChange(int id) {
+		if (changedDuringLoad != null) {
+			changedDuringLoad.add(id);
+		}
+	}
+
+	private void write(Runnable change) {
+		lock.writeLock().lock();
+		try {
+			change.run();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// callers keep their instance, which may be changed after it is handed over
+	private static Event copy(Event event) {
+		return new Event(event.getId(), event.getName(), event.getDate(), event.getLocation(), event.getVenue(),
+				event.getDescription(), event.getCapacity(), event.getLatitude(), event.getLongitude(),
+				event.getUpdatedAt());
+	}
+
+}
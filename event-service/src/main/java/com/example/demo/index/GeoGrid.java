@@ -0,0 +1,134 @@
+package com.example.demo.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.example.demo.util.Geo;
+
+/**
+ * Spatial index of event coordinates bucketed by geohash. Each point is filed
+ * under the binary geohash of its cell, 20 bits of longitude interleaved with
+ * 20 of latitude, a cell of about 40 by 20 metres at the equator. Because a
+ * geohash prefix names the larger cell around it, every cell at a coarser
+ * level is one contiguous range of keys. A query picks the level at which its
+ * bounding box spans a few cells, reads those ranges, and keeps the points
+ * within the radius.
+ *
+ * Not thread-safe, {@link EventCatalog} guards it.
+ */
+class GeoGrid {
+
+	private static final int BITS = 20;
+	// cells a query's bounding box may span in each direction at the level it picks
+	private static final int SPAN = 8;
+
+	private final NavigableMap<Long, PostingList> cells = new TreeMap<>();
+	private final Map<Integer, double[]> points = new HashMap<>();
+
+	void add(int id, double lat, double lon) {
+		remove(id);
+		points.put(id, new double[] { lat, lon });
+		cells.computeIfAbsent(cell(lat, lon), c -> new PostingList()).add(id);
+	}
+
+	void remove(int id) {
+		double[] point = points.remove(id);
+		if (point == null) {
+			return;
+		}
+		long cell = cell(point[0], point[1]);
+		PostingList ids = cells.get(cell);
+		ids.remove(id);
+		if (ids.isEmpty()) {
+			cells.remove(cell);
+		}
+	}
+
+	/**
+	 * Ids of the points within {@code radiusKm} of the given one, nearest
+	 * first, at most {@code limit} of them.
+	 */
+	int[] near(double lat, double lon, double radiusKm, int limit) {
+		double angle = radiusKm / Geo.EARTH_RADIUS_KM;
+		double minLat = lat - Math.toDegrees(angle);
+		double maxLat = lat + Math.toDegrees(angle);
+		// how far east and west the circle reaches; every longitude once it covers a pole
+		double lonReach = 180;
+		if (minLat > -90 && maxLat < 90) {
+			double sin = Math.sin(angle) / Math.cos(Math.toRadians(lat));
+			if (sin < 1) {
+				lonReach = Math.toDegrees(Math.asin(sin));
+			}
+		}
+		minLat = Math.max(-90, minLat);
+		maxLat = Math.min(90, maxLat);
+
+		int level = BITS;
+		while (level > 0 && ((maxLat - minLat) * (1 << level) / 180 > SPAN || 2 * lonReach * (1 << level) / 360 > SPAN)) {
+			level--;
+		}
+		int perSide = 1 << level;
+		int firstLat = index(minLat, -90, 180, level);
+		int lastLat = index(maxLat, -90, 180, level);
+		int firstLon;
+		int lonCount;
+		if (lonReach >= 180) {
+			firstLon = 0;
+			lonCount = perSide;
+		} else {
+			// may run past 180 degrees, wrapping to the cells west of the date line
+			firstLon = index(lon - lonReach, -180, 360, level);
+			lonCount = Math.min(perSide, index(lon + lonReach, -180, 360, level) - firstLon + 1);
+		}
+
+		List<Match> matches = new ArrayList<>();
+		int shift = 2 * (BITS - level);
+		for (int latIndex = firstLat; latIndex <= lastLat; latIndex++) {
+			for (int step = 0; step < lonCount; step++) {
+				int lonIndex = Math.floorMod(firstLon + step, perSide);
+				long first = interleave(lonIndex, latIndex) << shift;
+				for (PostingList ids : cells.subMap(first, true, first + (1L << shift), false).values()) {
+					for (int i = 0; i < ids.size(); i++) {
+						int id = ids.get(i);
+						double[] point = points.get(id);
+						double distance = Geo.distanceKm(lat, lon, point[0], point[1]);
+						if (distance <= radiusKm) {
+							matches.add(new Match(id, distance));
+						}
+					}
+				}
+			}
+		}
+		return matches.stream().sorted(Comparator.comparingDouble(Match::distance).thenComparingInt(Match::id))
+				.limit(limit).mapToInt(Match::id).toArray();
+	}
+
+	private record Match(int id, double distance) {
+	}
+
+	private static long cell(double lat, double lon) {
+		return interleave(index(lon, -180, 360, BITS), index(lat, -90, 180, BITS));
+	}
+
+	// the cell holding the coordinate at the level; not clamped, so it may lie outside [0, 2^level)
+	private static int index(double degrees, double origin, double extent, int level) {
+		int index = (int) Math.floor((degrees - origin) / extent * (1 << level));
+		// the top edge belongs to the last cell
+		return degrees - origin == extent ? index - 1 : index;
+	}
+
+	// lon bits in the odd positions from the top, lat in the even, as in a geohash
+	private static long interleave(int lonIndex, int latIndex) {
+		long key = 0;
+		for (int bit = BITS - 1; bit >= 0; bit--) {
+			key = key << 2 | ((lonIndex >>> bit) & 1) << 1 | (latIndex >>> bit) & 1;
+		}
+		return key;
+	}
+
+}
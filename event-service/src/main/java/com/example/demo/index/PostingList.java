@@ -0,0 +1,80 @@
+package com.example.demo.index;
+
+import java.util.Arrays;
+
+/**
+ * A growable sorted set of ints. Ids arriving in increasing order, as they do
+ * during the start-up load, are appended; others are inserted in place.
+ */
+class PostingList {
+
+	private int[] ids = new int[4];
+	private int size;
+
+	void add(int id) {
+		if (size > 0 && ids[size - 1] < id) {
+			ensureCapacity();
+			ids[size++] = id;
+			return;
+		}
+		int at = Arrays.binarySearch(ids, 0, size, id);
+		if (at >= 0) {
+			return;
+		}
+		at = -at - 1;
+		ensureCapacity();
+		System.arraycopy(ids, at, ids, at + 1, size - at);
+		ids[at] = id;
+		size++;
+	}
+
+	void remove(int id) {
+		int at = Arrays.binarySearch(ids, 0, size, id);
+		if (at < 0) {
+			return;
+		}
+		System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+		size--;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int get(int index) {
+		return ids[index];
+	}
+
+	int[] toArray() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	/**
+	 * Position of the first id not below {@code id}, searching from
+	 * {@code from}; {@link #size()} when there is none.
+	 */
+	int seek(int id, int from) {
+		// gallop ahead, then binary search the last step
+		int step = 1;
+		int low = from;
+		int high = from;
+		while (high < size && ids[high] < id) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		int at = Arrays.binarySearch(ids, low, Math.min(high + 1, size), id);
+		return at >= 0 ? at : -at - 1;
+	}
+
+	private void ensureCapacity() {
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+		}
+	}
+
+}
@@ -0,0 +1,281 @@
+package com.example.demo.index;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Character trie from keys to ranks, answering "the lowest ranks under this
+ * prefix" for autocomplete. Every node keeps the lowest ranks of its subtree
+ * that are not below the node's floor, at most {@link #CAPACITY}, so a query
+ * reads one short sorted array instead of walking the subtree. The list is
+ * always the lowest of the subtree, but may hold fewer than it could: ranks
+ * dropped by a removal or fallen below the floor are not replaced, and once a
+ * node cannot fill a query it is rebuilt from its subtree.
+ *
+ * A key is added once per rank. Keys longer than {@link #MAX_DEPTH} are cut,
+ * callers check longer prefixes themselves. Not thread-safe,
+ * {@link EventCatalog} guards it.
+ */
+class PrefixTrie {
+
+	static final int CAPACITY = 16;
+	static final int MAX_DEPTH = 24;
+
+	private final Node root = new Node();
+
+	void add(String key, long rank) {
+		Node node = root;
+		int length = Math.min(key.length(), MAX_DEPTH);
+		for (int depth = 0;; depth++) {
+			node.offer(rank);
+			if (depth == length) {
+				break;
+			}
+			node = node.child(key.charAt(depth), true);
+		}
+		node.addHere(rank);
+	}
+
+	void remove(String key, long rank) {
+		remove(root, key, Math.min(key.length(), MAX_DEPTH), 0, rank);
+	}
+
+	// true when the node is left with nothing under it
+	private boolean remove(Node node, String key, int length, int depth, long rank) {
+		node.best.remove(rank);
+		if (depth == length) {
+			node.removeHere(rank);
+		} else {
+			Node child = node.child(key.charAt(depth), false);
+			if (child != null && remove(child, key, length, depth + 1, rank)) {
+				node.removeChild(key.charAt(depth));
+			}
+		}
+		return node.hereCount == 0 && node.labels.length == 0;
+	}
+
+	/**
+	 * The lowest ranks not below {@code floor} under the prefix, at most
+	 * {@code limit}, or null when the prefix's node has to be rebuilt first.
+	 */
+	long[] top(String prefix, int limit, long floor) {
+		Node node = find(prefix);
+		if (node == null) {
+			return new long[0];
+		}
+		int from = node.best.firstAtLeast(floor);
+		int available = node.best.size - from;
+		if (available < limit && !node.exhaustive) {
+			return null;
+		}
+		return Arrays.copyOfRange(node.best.values, from, from + Math.min(limit, available));
+	}
+
+	/**
+	 * Refills the prefix's node from its subtree, then answers as
+	 * {@link #top(String, int, long)}.
+	 */
+	long[] rebuild(String prefix, int limit, long floor) {
+		Node node = find(prefix);
+		if (node == null) {
+			return new long[0];
+		}
+		Ranks best = new Ranks();
+		boolean exhaustive = collect(node, floor, best);
+		node.best = best;
+		node.exhaustive = exhaustive;
+		node.floor = floor;
+		return Arrays.copyOf(best.values, Math.min(limit, best.size));
+	}
+
+	// keeps the lowest CAPACITY ranks of the subtree in best, false when some did not fit
+	private static boolean collect(Node node, long floor, Ranks best) {
+		boolean exhaustive = true;
+		for (int i = 0; i < node.hereCount; i++) {
+			long rank = node.here[i];
+			if (rank < floor) {
+				continue;
+			}
+			if (best.size == CAPACITY && rank >= best.last()) {
+				exhaustive = false;
+				continue;
+			}
+			best.add(rank);
+			if (best.size > CAPACITY) {
+				best.removeLast();
+				exhaustive = false;
+			}
+		}
+		for (Node child : node.children) {
+			exhaustive &= collect(child, floor, best);
+		}
+		return exhaustive;
+	}
+
+	/**
+	 * Every rank not below {@code floor} under the prefix, in order.
+	 */
+	long[] all(String prefix, long floor) {
+		Node node = find(prefix);
+		if (node == null) {
+			return new long[0];
+		}
+		LongStream.Builder all = LongStream.builder();
+		gather(node, floor, all);
+		return all.build().sorted().distinct().toArray();
+	}
+
+	private static void gather(Node node, long floor, LongStream.Builder all) {
+		for (int i = 0; i < node.hereCount; i++) {
+			if (node.here[i] >= floor) {
+				all.add(node.here[i]);
+			}
+		}
+		for (Node child : node.children) {
+			gather(child, floor, all);
+		}
+	}
+
+	private Node find(String prefix) {
+		Node node = root;
+		int length = Math.min(prefix.length(), MAX_DEPTH);
+		for (int depth = 0; depth < length && node != null; depth++) {
+			node = node.child(prefix.charAt(depth), false);
+		}
+		return node;
+	}
+
+	private static final class Node {
+
+		private static final char[] NO_LABELS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+		private static final long[] NO_RANKS = new long[0];
+
+		// children by label, both sorted by label and sized exactly
+		private char[] labels = NO_LABELS;
+		private Node[] children = NO_CHILDREN;
+		// ranks whose key ends here, unordered; a location can be shared by
+		// thousands of events, and is only scanned when a node is rebuilt
+		private long[] here = NO_RANKS;
+		private int hereCount;
+		private Ranks best = new Ranks();
+		// best holds every rank of the subtree not below the floor
+		private boolean exhaustive = true;
+		private long floor = Long.MIN_VALUE;
+
+		void offer(long rank) {
+			if (rank < floor) {
+				return;
+			}
+			if (exhaustive || (best.size > 0 && rank < best.last())) {
+				best.add(rank);
+				if (best.size > CAPACITY) {
+					best.removeLast();
+					exhaustive = false;
+				}
+			}
+		}
+
+		// callers add a key once per rank
+		void addHere(long rank) {
+			if (hereCount == here.length) {
+				here = Arrays.copyOf(here, hereCount + (hereCount >> 1) + 1);
+			}
+			here[hereCount++] = rank;
+		}
+
+		void removeHere(long rank) {
+			for (int i = 0; i < hereCount; i++) {
+				if (here[i] == rank) {
+					here[i] = here[--hereCount];
+					return;
+				}
+			}
+		}
+
+		Node child(char label, boolean create) {
+			int at = Arrays.binarySearch(labels, label);
+			if (at >= 0) {
+				return children[at];
+			}
+			if (!create) {
+				return null;
+			}
+			at = -at - 1;
+			char[] grownLabels = new char[labels.length + 1];
+			Node[] grownChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, grownLabels, 0, at);
+			System.arraycopy(children, 0, grownChildren, 0, at);
+			System.arraycopy(labels, at, grownLabels, at + 1, labels.length - at);
+			System.arraycopy(children, at, grownChildren, at + 1, children.length - at);
+			Node child = new Node();
+			grownLabels[at] = label;
+			grownChildren[at] = child;
+			labels = grownLabels;
+			children = grownChildren;
+			return child;
+		}
+
+		void removeChild(char label) {
+			int at = Arrays.binarySearch(labels, label);
+			if (at < 0) {
+				return;
+			}
+			char[] shrunkLabels = new char[labels.length - 1];
+			Node[] shrunkChildren = new Node[children.length - 1];
+			System.arraycopy(labels, 0, shrunkLabels, 0, at);
+			System.arraycopy(children, 0, shrunkChildren, 0, at);
+			System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+			System.arraycopy(children, at + 1, shrunkChildren, at, children.length - at - 1);
+			labels = shrunkLabels.length == 0 ? NO_LABELS : shrunkLabels;
+			children = shrunkChildren.length == 0 ? NO_CHILDREN : shrunkChildren;
+		}
+
+	}
+
+	/**
+	 * A small sorted set of longs.
+	 */
+	private static final class Ranks {
+
+		private long[] values = new long[2];
+		private int size;
+
+		void add(long rank) {
+			int at = Arrays.binarySearch(values, 0, size, rank);
+			if (at >= 0) {
+				return;
+			}
+			at = -at - 1;
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			System.arraycopy(values, at, values, at + 1, size - at);
+			values[at] = rank;
+			size++;
+		}
+
+		void remove(long rank) {
+			int at = Arrays.binarySearch(values, 0, size, rank);
+			if (at >= 0) {
+				System.arraycopy(values, at + 1, values, at, size - at - 1);
+				size--;
+			}
+		}
+
+		long last() {
+			return values[size - 1];
+		}
+
+		void removeLast() {
+			size--;
+		}
+
+		int firstAtLeast(long floor) {
+			int at = Arrays.binarySearch(values, 0, size, floor);
+			return at >= 0 ? at : -at - 1;
+		}
+
+	}
+
+}
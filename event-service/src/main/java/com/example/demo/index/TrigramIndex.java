@@ -0,0 +1,135 @@
+package com.example.demo.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram inverted index over event names, answering the same substring
+ * question as {@code LIKE '%keyword%'}. Every run of three characters of a
+ * lower-cased name maps to the sorted ids of the events whose name contains
+ * it. A keyword's candidates are the intersection of its trigrams' lists,
+ * smallest first, and each candidate is checked against the name, because
+ * holding all the trigrams does not mean holding them in the right order.
+ * Keywords shorter than a trigram are matched by scanning the names.
+ *
+ * Not thread-safe, {@link EventCatalog} guards it.
+ */
+class TrigramIndex {
+
+	private final Map<Long, PostingList> postings = new HashMap<>();
+	private final Map<Integer, String> names = new HashMap<>();
+
+	void add(int id, String name) {
+		String normalized = normalize(name);
+		names.put(id, normalized);
+		for (long trigram : trigrams(normalized)) {
+			postings.computeIfAbsent(trigram, t -> new PostingList()).add(id);
+		}
+	}
+
+	void remove(int id) {
+		String normalized = names.remove(id);
+		if (normalized == null) {
+			return;
+		}
+		for (long trigram : trigrams(normalized)) {
+			PostingList list = postings.get(trigram);
+			if (list != null) {
+				list.remove(id);
+				if (list.isEmpty()) {
+					postings.remove(trigram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ids of the events whose name contains the keyword, ignoring case, in
+	 * increasing order.
+	 */
+	int[] search(String keyword) {
+		String needle = normalize(keyword);
+		if (needle.length() < 3) {
+			return names.entrySet().stream().filter(entry -> entry.getValue().contains(needle))
+					.mapToInt(Map.Entry::getKey).sorted().toArray();
+		}
+		Set<Long> grams = trigrams(needle);
+		PostingList[] lists = new PostingList[grams.size()];
+		int count = 0;
+		for (long trigram : grams) {
+			PostingList list = postings.get(trigram);
+			if (list == null) {
+				return new int[0];
+			}
+			lists[count++] = list;
+		}
+		Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+
+		int[] candidates = lists[0].toArray();
+		int remaining = candidates.length;
+		for (int i = 1; i < lists.length && remaining > 0; i++) {
+			int kept = 0;
+			int from = 0;
+			for (int j = 0; j < remaining; j++) {
+				from = lists[i].seek(candidates[j], from);
+				if (from == lists[i].size()) {
+					break;
+				}
+				if (lists[i].get(from) == candidates[j]) {
+					candidates[kept++] = candidates[j];
+				}
+			}
+			remaining = kept;
+		}
+
+		int matches = 0;
+		for (int i = 0; i < remaining; i++) {
+			if (names.get(candidates[i]).contains(needle)) {
+				candidates[matches++] = candidates[i];
+			}
+		}
+		return Arrays.copyOf(candidates, matches);
+	}
+
+	/**
+	 * Whether the event's name contains the keyword, ignoring case.
+	 */
+	boolean matches(int id, String keyword) {
+		String name = names.get(id);
+		return name != null && name.contains(normalize(keyword));
+	}
+
+	/**
+	 * An upper bound on how many names contain the keyword.
+	 */
+	int estimate(String keyword) {
+		String needle = normalize(keyword);
+		if (needle.length() < 3) {
+			return names.size();
+		}
+		int smallest = names.size();
+		for (long trigram : trigrams(needle)) {
+			PostingList list = postings.get(trigram);
+			smallest = Math.min(smallest, list == null ? 0 : list.size());
+		}
+		return smallest;
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	private static Set<Long> trigrams(String text) {
+		Set<Long> grams = new HashSet<>();
+		for (int i = 0; i + 3 <= text.length(); i++) {
+			grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+		}
+		return grams;
+	}
+
+}
@@ -1,8 +1,12 @@
 package com.example.demo.repository;
 
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.entity.Event;
@@ -14,4 +18,32 @@ public interface EventRepo extends JpaRepository<Event, Integer> {
 
 	List<Event> findByLocation(String location);
 
+	// what the catalog answers from memory, for while it is still loading
+	@Query("SELECT e FROM Event e WHERE (:location IS NULL OR e.location = :location)"
+			+ " AND (:venue IS NULL OR e.venue = :venue) AND (:from IS NULL OR e.date >= :from)"
+			+ " AND (:before IS NULL OR e.date < :before)"
+			+ " AND (:keyword IS NULL OR e.name LIKE CONCAT('%', :keyword, '%')) ORDER BY e.id")
+	List<Event> search(@Param("location") String location, @Param("venue") String venue, @Param("from") Date from,
+			@Param("before") Date before, @Param("keyword") String keyword, Limit limit);
+
+	// the band of latitudes a radius reaches, for distance searches while the catalog loads
+	List<Event> findByLatitudeBetweenAndLongitudeIsNotNull(double minLatitude, double maxLatitude);
+
+	// keyset page in (date, id) order, served by idx_events_date; the cursor's day is
+	// bounded by the starts of it and the next day, so it matches however the date was stored
+	@Query("SELECT e FROM Event e WHERE e.date >= :from AND (:before IS NULL OR e.date < :before)"
+			+ " AND (e.date >= :nextDay OR (e.date >= :afterDay AND e.date < :nextDay AND e.id > :afterId))"
+			+ " ORDER BY e.date, e.id")
+	List<Event> findUpcoming(@Param("from") Date from, @Param("before") Date before, @Param("afterDay") Date afterDay,
+			@Param("nextDay") Date nextDay, @Param("afterId") int afterId, Limit limit);
+
+	// keyset page in id order, for loading the catalog
+	List<Event> findByIdGreaterThanOrderByIdAsc(int after, Limit limit);
+
+	// rows written since, for the catalog to catch up; served by idx_events_updated_at
+	List<Event> findByUpdatedAtGreaterThanEqual(Date since);
+
+	@Query("SELECT e.id FROM Event e")
+	List<Integer> findIds();
+
 }
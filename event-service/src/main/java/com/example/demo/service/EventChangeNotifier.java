@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import com.example.demo.util.TransactionCallbacks;
+
+/**
+ * Tells every booking-service instance to drop its cached copy of an event,
+ * and every event-service instance to reload it into its catalog.
+ * A load-balanced Feign call would only reach one of them, so the instances
+ * are looked up in the registry and called directly, with the shared
+ * {@code internal.api-key} the booking side checks.
+ *
+ * Notices go out after the change commits, from a small pool of their own, so
+ * the request that made the change never waits on other instances. A full
+ * queue drops the notice. Dropped and failed notices are logged and left to
+ * the cache TTL on the booking side; a catalog that missed a change catches up
+ * when {@code EventCatalog.reconcile} next runs.
+ */
+@Component
+public class EventChangeNotifier implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(EventChangeNotifier.class);
+
+	static final String INTERNAL_KEY_HEADER = "X-Internal-Key";
+
+	private DiscoveryClient discoveryClient;
+	private RestClient restClient;
+	private ExecutorService executor;
+
+	public EventChangeNotifier(DiscoveryClient discoveryClient, RestClient.Builder builder,
+			@Value("${event.notify.timeout:500ms}") Duration timeout, @Value("${internal.api-key:}") String internalKey,
+			@Value("${event.notify.threads:4}") int threads, @Value("${event.notify.queue-size:1000}") int queueSize) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(timeout);
+		requestFactory.setReadTimeout(timeout);
+		this.discoveryClient = discoveryClient;
+		this.restClient = builder.requestFactory(requestFactory)
+				.defaultHeaders(headers -> {
+					if (!internalKey.isEmpty()) {
+						headers.set(INTERNAL_KEY_HEADER, internalKey);
+					}
+				})
+				.build();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "event-notify-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	public void eventCreated(int eventId) {
+		TransactionCallbacks.afterCommit(() -> send(() -> {
+			for (ServiceInstance instance : discoveryClient.getInstances("EVENT-SERVICE")) {
+				send(() -> refresh(instance, eventId));
+			}
+		}));
+	}
+
+	public void eventChanged(int eventId) {
+		TransactionCallbacks.afterCommit(() -> send(() -> {
+			for (ServiceInstance instance : discoveryClient.getInstances("BOOKING-SERVICE")) {
+				send(() -> evict(instance, eventId));
+			}
+			for (ServiceInstance instance : discoveryClient.getInstances("EVENT-SERVICE")) {
+				send(() -> refresh(instance, eventId));
+			}
+		}));
+	}
+
+	private void send(Runnable notice) {
+		try {
+			executor.execute(notice);
+		} catch (RejectedExecutionException e) {
+			logger.warn("Notice queue full, dropping an event change notice");
+		}
+	}
+
+	private void evict(ServiceInstance instance, int eventId) {
+		try {
+			restClient.delete()
+					.uri(instance.getUri() + "/internal/event-cache/{eventId}", eventId)
+					.retrieve()
+					.toBodilessEntity();
+		} catch (RestClientException e) {
+			logger.warn("Could not evict event {} from {}: {}", eventId, instance.getUri(), e.getMessage());
+		}
+	}
+
+	// the calling instance is among the peers, reloading its own copy is harmless
+	private void refresh(ServiceInstance instance, int eventId) {
+		try {
+			restClient.put()
+					.uri(instance.getUri() + "/events/catalog/{eventId}", eventId)
+					.retrieve()
+					.toBodilessEntity();
+		} catch (RestClientException e) {
+			logger.warn("Could not refresh event {} on {}: {}", eventId, instance.getUri(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import com.example.demo.dto.EventPage;
 import com.example.demo.entity.Event;
 import com.example.demo.exception.EventNotFoundException;
 
@@ -21,4 +23,15 @@ public interface EventService {
 
 	String delete(Integer id) throws EventNotFoundException;
 
+	List<Event> search(String location, String venue, LocalDate from, LocalDate to, String keyword, int limit)
+			throws EventNotFoundException;
+
+	List<Event> getNear(double lat, double lon, double radiusKm, int limit) throws EventNotFoundException;
+
+	EventPage getUpcoming(LocalDate from, LocalDate to, Long after, int limit);
+
+	List<Event> suggest(String prefix, int limit);
+
+	void refreshCatalog(Integer id);
+
 }
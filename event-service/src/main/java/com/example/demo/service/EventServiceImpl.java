@@ -1,47 +1,128 @@
 package com.example.demo.service;
 
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dto.EventPage;
 import com.example.demo.entity.Event;
 import com.example.demo.exception.EventNotFoundException;
 import com.example.demo.feign.BookingClient;
+import com.example.demo.index.EventCatalog;
 import com.example.demo.repository.EventRepo;
+import com.example.demo.util.EventDays;
+import com.example.demo.util.Geo;
 
 @Service
 public class EventServiceImpl implements EventService {
 	
 	String message = "Event not present with id: ";
 
+	private static final int MAX_PAGE_SIZE = 1000;
+
 	private EventRepo repo;
 	private BookingClient bookingClient;
+	private EventChangeNotifier notifier;
+	private EventCatalog catalog;
 
-	public EventServiceImpl(EventRepo repo,BookingClient bookingClient) {
+	public EventServiceImpl(EventRepo repo,BookingClient bookingClient,EventChangeNotifier notifier,EventCatalog catalog) {
 		this.repo = repo;
 		this.bookingClient = bookingClient;
+		this.notifier = notifier;
+		this.catalog = catalog;
 	}
 
 	public void save(Event event) {
 		repo.save(event);
+		catalog.put(event);
+		notifier.eventCreated(event.getId());
 	}
 
+	@Transactional(readOnly = true)
 	public List<Event> getAll() {
 		return repo.findAll();
 	}
 
+	@Transactional(readOnly = true)
 	public Event getById(Integer id) throws EventNotFoundException {
 		return repo.findById(id).orElseThrow(()->new EventNotFoundException(message + id));
 	}
 
+	@Transactional(readOnly = true)
 	public List<Event> getByName(String keyword) throws EventNotFoundException {
-		List<Event> events = repo.findByNameContaining(keyword);
+		// the catalog answers once loaded, until then LIKE '%keyword%' scans the table
+		List<Event> events = catalog.isReady() ? catalog.findByName(keyword) : repo.findByNameContaining(keyword);
 		if(events.isEmpty()) {
 			throw new EventNotFoundException("No events found with name " + keyword);
 		}
 		return events;
 	}
 
+	@Transactional(readOnly = true)
+	public List<Event> search(String location, String venue, LocalDate from, LocalDate to, String keyword, int limit)
+			throws EventNotFoundException {
+		List<Event> events;
+		if (catalog.isReady()) {
+			events = catalog.search(location, venue, from, to, keyword, limit);
+		} else {
+			events = repo.search(location, venue, EventDays.startOf(from), to == null ? null : EventDays.startOf(to.plusDays(1)), keyword,
+					Limit.of(limit));
+		}
+		if(events.isEmpty()) {
+			throw new EventNotFoundException("No events match the search");
+		}
+		return events;
+	}
+
+	@Transactional(readOnly = true)
+	public List<Event> getNear(double lat, double lon, double radiusKm, int limit) throws EventNotFoundException {
+		int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<Event> events;
+		if (catalog.isReady()) {
+			events = catalog.near(lat, lon, radiusKm, size);
+		} else {
+			double band = Math.toDegrees(radiusKm / Geo.EARTH_RADIUS_KM);
+			Comparator<Event> nearest = Comparator
+					.comparingDouble((Event event) -> Geo.distanceKm(lat, lon, event.getLatitude(), event.getLongitude()))
+					.thenComparingInt(Event::getId);
+			events = repo.findByLatitudeBetweenAndLongitudeIsNotNull(lat - band, lat + band).stream()
+					.filter(event -> Geo.distanceKm(lat, lon, event.getLatitude(), event.getLongitude()) <= radiusKm)
+					.sorted(nearest).limit(size).toList();
+		}
+		if(events.isEmpty()) {
+			throw new EventNotFoundException("No events within " + radiusKm + " km");
+		}
+		return events;
+	}
+
+	@Transactional(readOnly = true)
+	public EventPage getUpcoming(LocalDate from, LocalDate to, Long after, int limit) {
+		int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		LocalDate first = from == null ? EventDays.today() : from;
+		List<Event> items;
+		// past days have expired from the catalog, the date index serves them
+		if (catalog.isReady() && !first.isBefore(EventDays.today())) {
+			items = catalog.upcoming(first, to, after, size);
+		} else {
+			LocalDate afterDay = after == null ? first : LocalDate.ofEpochDay(after >> 32);
+			int afterId = after == null ? 0 : (int) (long) after;
+			items = repo.findUpcoming(EventDays.startOf(first), to == null ? null : EventDays.startOf(to.plusDays(1)), EventDays.startOf(afterDay),
+					EventDays.startOf(afterDay.plusDays(1)), afterId, Limit.of(size));
+		}
+		Long nextAfter = items.size() < size ? null : EventCatalog.rank(items.get(items.size() - 1));
+		return new EventPage(items, nextAfter);
+	}
+
+	// autocomplete stays off MySQL, it answers nothing until the catalog is loaded
+	public List<Event> suggest(String prefix, int limit) {
+		return catalog.isReady() ? catalog.suggest(prefix, limit) : List.of();
+	}
+
+	@Transactional(readOnly = true)
 	public List<Event> getByLocation(String keyword) throws EventNotFoundException {
 		List<Event> events = repo.findByLocation(keyword);
 		if(events.isEmpty()) {
@@ -55,6 +136,9 @@ public class EventServiceImpl implements EventService {
 			throw new EventNotFoundException(message + event.getId());
 		}
 		repo.save(event);
+		catalog.put(event);
+		// booking-service caches events, drop the old copy
+		notifier.eventChanged(event.getId());
 	}
 
 	public String delete(Integer id) throws EventNotFoundException {
@@ -62,7 +146,14 @@ public class EventServiceImpl implements EventService {
 			throw new EventNotFoundException(message + id);
 		}
 		repo.deleteById(id);
+		catalog.remove(id);
         bookingClient.deleteBookingByEventId(id);
+        notifier.eventChanged(id);
         return "Event deleted successfully!!!";
 	}
+
+	@Transactional(readOnly = true)
+	public void refreshCatalog(Integer id) {
+		repo.findById(id).ifPresentOrElse(catalog::put, () -> catalog.remove(id));
+	}
 }
@@ -0,0 +1,34 @@
+package com.example.demo.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Event dates are days. Clients send them as dd-MM-yyyy, which Jackson reads
+ * as the start of the day in {@code spring.jackson.time-zone}, so every
+ * conversion between a date and its day goes through here in that same zone.
+ */
+public final class EventDays {
+
+	// must match spring.jackson.time-zone
+	public static final ZoneId ZONE = ZoneOffset.UTC;
+
+	private EventDays() {
+	}
+
+	public static long day(Date date) {
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZONE).toLocalDate().toEpochDay();
+	}
+
+	public static Date startOf(LocalDate day) {
+		return day == null ? null : Date.from(day.atStartOfDay(ZONE).toInstant());
+	}
+
+	public static LocalDate today() {
+		return LocalDate.now(ZONE);
+	}
+
+}
@@ -20,7 +20,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import com.example.demo.entity.Event;
 import com.example.demo.exception.EventNotFoundException;
+import com.example.demo.feign.BookingClient;
+import com.example.demo.index.EventCatalog;
 import com.example.demo.repository.EventRepo;
+import com.example.demo.service.EventChangeNotifier;
 import com.example.demo.service.EventServiceImpl;
 
 @SpringBootTest
@@ -29,6 +32,15 @@ class EventServiceApplicationTests {
 	@Mock
 	private EventRepo eventRepo;
 
+	@Mock
+	private EventChangeNotifier notifier;
+
+	@Mock
+	private EventCatalog catalog;
+
+	@Mock
+	private BookingClient bookingClient;
+
 	@InjectMocks
 	private EventServiceImpl eventService;
 
@@ -86,6 +98,17 @@ class EventServiceApplicationTests {
 		verify(eventRepo, times(1)).findByNameContaining("Event");
 	}
 
+	@Test
+	void testGetByNameFromCatalog() throws EventNotFoundException {
+		when(catalog.isReady()).thenReturn(true);
+		when(catalog.findByName("Two")).thenReturn(Arrays.asList(event2));
+
+		List<Event> events = eventService.getByName("Two");
+
+		assertEquals(1, events.size());
+		verify(eventRepo, times(0)).findByNameContaining("Two");
+	}
+
 	@Test
 	void testGetByLocation() throws EventNotFoundException {
 		when(eventRepo.findByLocation("Location One")).thenReturn(Arrays.asList(event1));
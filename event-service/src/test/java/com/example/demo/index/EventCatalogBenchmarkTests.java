@@ -0,0 +1,385 @@
+package com.example.demo.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import com.example.demo.entity.Event;
+import com.example.demo.repository.EventRepo;
+import com.example.demo.util.EventDays;
+import com.example.demo.util.Geo;
+
+/**
+ * Checks that the catalog finds the same events by name as the repository's
+ * {@code LIKE} query, searches and pages upcoming events as its JPQL queries
+ * do, and suggests and finds events by distance as a scan of the events
+ * would. When run with {@code -Dbenchmark=true} it seeds H2 in MySQL mode
+ * with {@code benchmark.rows} events (one million by default) and prints the
+ * latency of the database and catalog paths; the database and the catalog
+ * together need about 3 GB of heap, {@code -DargLine=-Xmx3g}. H2 ignores case
+ * here as MySQL's default collation does.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:events;MODE=MySQL;IGNORECASE=TRUE",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.cloud.config.enabled=false" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EventCatalogBenchmarkTests {
+
+	private static final String[] KEYWORDS = { "rock", "Jazz Night", "ro", "k", "Kolkata 12", "777", "comedy",
+			"festival 1", "zzz", "hall" };
+
+	@Autowired
+	private EventRepo repo;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private EventCatalog catalog;
+
+	// the catalog loads outside any transaction, as it does at start-up, so the
+	// seed is committed first and the rows are cleared here instead of rolled back
+	private void seed(int rows) {
+		jdbc.execute("TRUNCATE TABLE events");
+		jdbc.update("INSERT INTO events (id, name, date, location, venue, description, capacity, latitude, longitude) "
+				+ "SELECT X, CONCAT(CASE MOD(X, 5) WHEN 0 THEN 'Rock Concert ' WHEN 1 THEN 'Jazz Night ' "
+				+ "WHEN 2 THEN 'Comedy Show ' WHEN 3 THEN 'Food Festival ' ELSE 'Kolkata Hall Meetup ' END, X), "
+				// the start of each day in EventDays.ZONE, as dates sent by clients are stored
+				+ "CAST(DATEADD(DAY, MOD(X * 7919, 730) - 30, TIMESTAMP WITH TIME ZONE '" + EventDays.today()
+				+ " 00:00:00+00') AS TIMESTAMP), "
+				+ "CASE MOD(X, 3) WHEN 0 THEN 'Kolkata' WHEN 1 THEN 'New Delhi' ELSE 'Mumbai' END, "
+				+ "CONCAT('Hall ', MOD(X, 7)), 'seeded', 100, "
+				// spread over India, roughly 8..35 N and 68..97 E
+				+ "8 + MOD(X * 7919, 27000) / 1000.0, 68 + MOD(X * 104729, 29000) / 1000.0 "
+				+ "FROM SYSTEM_RANGE(1, " + rows + ")");
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		catalog = new EventCatalog(repo, 1000, Duration.ofMinutes(1));
+		catalog.load();
+		TestTransaction.start();
+	}
+
+	private static List<Integer> ids(List<Event> events) {
+		return ids(events, true);
+	}
+
+	private static List<Integer> ids(List<Event> events, boolean sorted) {
+		List<Integer> ids = events.stream().map(Event::getId).toList();
+		return sorted ? ids.stream().sorted().toList() : ids;
+	}
+
+	@Test
+	void catalogMatchesLike() {
+		seed(10_000);
+		assertEquals(10_000, catalog.size());
+		for (String keyword : KEYWORDS) {
+			assertEquals(ids(repo.findByNameContaining(keyword)), ids(catalog.findByName(keyword)), keyword);
+		}
+	}
+
+	@Test
+	void catalogFollowsChanges() {
+		seed(100);
+		Event event = repo.findById(7).orElseThrow();
+		event.setName("Sitar Evening");
+		catalog.put(event);
+		// the catalog keeps its own copy
+		event.setName("Something Else");
+		assertEquals(List.of(7), ids(catalog.findByName("sitar")));
+		assertTrue(catalog.findByName("something").isEmpty());
+		assertTrue(ids(catalog.findByName("jazz")).stream().noneMatch(id -> id == 7));
+
+		catalog.remove(7);
+		assertTrue(catalog.findByName("sitar").isEmpty());
+		assertEquals(99, catalog.size());
+	}
+
+	@Test
+	void searchMatchesTheQuery() {
+		seed(100_000);
+		LocalDate today = EventDays.today();
+		String[] locations = { null, "Kolkata", "new delhi", "Chennai" };
+		String[] venues = { null, "hall 3" };
+		LocalDate[][] ranges = { { null, null }, { today, today.plusDays(30) }, { null, today.minusDays(1) },
+				{ today.plusDays(600), null }, { today.plusDays(5), today } };
+		String[] keywords = { null, "jazz", "night 77", "zzz" };
+		for (String location : locations) {
+			for (String venue : venues) {
+				for (LocalDate[] range : ranges) {
+					for (String keyword : keywords) {
+						Date before = range[1] == null ? null : startOf(range[1].plusDays(1));
+						List<Event> expected = repo.search(location, venue, startOf(range[0]), before, keyword,
+								Limit.of(500));
+						assertEquals(ids(expected, false),
+								ids(catalog.search(location, venue, range[0], range[1], keyword, 500), false),
+								location + " " + venue + " " + Arrays.toString(range) + " " + keyword);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void upcomingPagesMatchTheQuery() {
+		seed(10_000);
+		LocalDate today = EventDays.today();
+		assertTrue(plan("SELECT * FROM events WHERE date >= CURRENT_DATE ORDER BY date, id LIMIT 10")
+				.contains("idx_events_date"));
+		for (LocalDate[] range : new LocalDate[][] { { today, today.plusDays(60) }, { today.plusDays(690), null } }) {
+			List<Integer> fromQuery = new ArrayList<>();
+			List<Integer> fromCatalog = new ArrayList<>();
+			Long after = null;
+			do {
+				LocalDate afterDay = after == null ? range[0] : LocalDate.ofEpochDay(after >> 32);
+				List<Event> page = repo.findUpcoming(startOf(range[0]),
+						range[1] == null ? null : startOf(range[1].plusDays(1)), startOf(afterDay),
+						startOf(afterDay.plusDays(1)), after == null ? 0 : (int) (long) after, Limit.of(37));
+				page.forEach(event -> fromQuery.add(event.getId()));
+				after = page.size() < 37 ? null : EventCatalog.rank(page.get(page.size() - 1));
+			} while (after != null);
+			do {
+				List<Event> page = catalog.upcoming(range[0], range[1], after, 37);
+				page.forEach(event -> fromCatalog.add(event.getId()));
+				after = page.size() < 37 ? null : EventCatalog.rank(page.get(page.size() - 1));
+			} while (after != null);
+			assertTrue(fromQuery.size() > 37);
+			assertEquals(fromQuery, fromCatalog);
+		}
+		// past days are not served from memory
+		assertTrue(catalog.upcoming(today.minusDays(30), today.minusDays(1), null, 10).isEmpty());
+	}
+
+	private String plan(String sql) {
+		return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class)).toLowerCase();
+	}
+
+	private static Date startOf(LocalDate day) {
+		return EventDays.startOf(day);
+	}
+
+	@Test
+	void reconcilePicksUpChangesTheCatalogWasNotToldAbout() {
+		seed(100);
+		TestTransaction.end();
+		// written straight to the table, as by another instance whose refresh call never arrived
+		Event renamed = repo.findById(7).orElseThrow();
+		renamed.setName("Sitar Evening");
+		repo.saveAndFlush(renamed);
+		Event added = repo.saveAndFlush(new Event(0, "Tabla Recital", startOf(EventDays.today().plusDays(2)),
+				"Kolkata", "Hall 1", "added"));
+		repo.deleteById(9);
+		assertTrue(catalog.findByName("sitar").isEmpty());
+
+		catalog.reconcile();
+		assertEquals(List.of(7), ids(catalog.findByName("sitar")));
+		assertEquals(List.of(added.getId()), ids(catalog.findByName("tabla")));
+		assertTrue(ids(catalog.search(null, null, null, null, null, 1000)).stream().noneMatch(id -> id == 9));
+		assertEquals(100, catalog.size());
+		TestTransaction.start();
+	}
+
+	@Test
+	void datesAreStoredAsTheStartOfTheirDay() {
+		LocalDate day = EventDays.today().plusDays(3);
+		Date evening = new Date(startOf(day).getTime() + 20 * 3600_000L);
+		Event saved = repo.saveAndFlush(new Event(0, "Late Show", evening, "Kolkata", "Hall 1", "seeded"));
+		entityManager.clear();
+		assertEquals(startOf(day), repo.findById(saved.getId()).orElseThrow().getDate());
+		assertEquals(day.toEpochDay(), EventCatalog.rank(saved) >> 32);
+	}
+
+	@Test
+	void bitmapMatchesASet() {
+		Random random = new Random(3);
+		CompressedBitmap bitmap = new CompressedBitmap();
+		TreeSet<Integer> expected = new TreeSet<>();
+		// dense and sparse chunks, so that containers change kind both ways
+		for (int round = 0; round < 200_000; round++) {
+			int value = random.nextBoolean() ? random.nextInt(9000) : random.nextInt(1 << 22);
+			if (random.nextInt(3) == 0) {
+				bitmap.remove(value);
+				expected.remove(value);
+			} else {
+				bitmap.add(value);
+				expected.add(value);
+			}
+		}
+		assertEquals(expected.size(), bitmap.cardinality());
+		assertEquals(expected.stream().toList(), Arrays.stream(bitmap.toArray(Integer.MAX_VALUE)).boxed().toList());
+
+		CompressedBitmap other = CompressedBitmap.of(random.ints(100_000, 0, 1 << 20).sorted().distinct().toArray());
+		Set<Integer> theirs = Arrays.stream(other.toArray(Integer.MAX_VALUE)).boxed().collect(Collectors.toSet());
+		assertEquals(expected.stream().filter(theirs::contains).toList(),
+				Arrays.stream(bitmap.and(other).toArray(Integer.MAX_VALUE)).boxed().toList());
+		TreeSet<Integer> either = new TreeSet<>(expected);
+		either.addAll(theirs);
+		CompressedBitmap union = CompressedBitmap.or(List.of(bitmap, other));
+		assertEquals(either.size(), union.cardinality());
+		assertEquals(either.stream().toList(), Arrays.stream(union.toArray(Integer.MAX_VALUE)).boxed().toList());
+	}
+
+	@Test
+	void nearMatchesAScan() {
+		catalog = new EventCatalog(repo, 1000, Duration.ofMinutes(1));
+		Random random = new Random(11);
+		Map<Integer, Event> placed = new HashMap<>();
+		for (int id = 1; id <= 5000; id++) {
+			// clustered around a few spots, two of them by the date line and one by the pole
+			double[] spot = new double[][] { { 22.57, 88.36 }, { -16.5, 179.9 }, { 64.8, -179.95 }, { 89.6, 10 },
+					{ 0, 0 } }[id % 5];
+			double lat = Math.max(-90, Math.min(90, spot[0] + random.nextGaussian()));
+			double lon = spot[1] + random.nextGaussian() * 2;
+			lon = lon > 180 ? lon - 360 : lon < -180 ? lon + 360 : lon;
+			Event event = new Event(id, "event " + id, null, "somewhere", "Hall", "placed", 10, lat, lon);
+			catalog.put(event);
+			placed.put(id, event);
+		}
+		for (int id = 1; id <= 5000; id += 7) {
+			catalog.remove(id);
+			placed.remove(id);
+		}
+		for (int round = 0; round < 300; round++) {
+			Event center = placed.values().stream().skip(random.nextInt(placed.size())).findFirst().orElseThrow();
+			double radius = new double[] { 1, 25, 150, 900, 5000 }[round % 5];
+			double lat = center.getLatitude();
+			double lon = center.getLongitude();
+			List<Integer> expected = placed.values().stream()
+					.filter(event -> Geo.distanceKm(lat, lon, event.getLatitude(), event.getLongitude()) <= radius)
+					.sorted(Comparator.comparingDouble(
+							(Event event) -> Geo.distanceKm(lat, lon, event.getLatitude(), event.getLongitude()))
+							.thenComparingInt(Event::getId))
+					.limit(50).map(Event::getId).toList();
+			assertEquals(expected, ids(catalog.near(lat, lon, radius, 50), false), lat + "," + lon + " " + radius);
+		}
+	}
+
+	@Test
+	void suggestionsMatchAScan() {
+		catalog = new EventCatalog(repo, 1000, Duration.ofMinutes(1));
+		Random random = new Random(7);
+		String[] words = { "rock", "rocket", "road", "jazz", "java", "kolkata", "kochi", "delhi" };
+		LocalDate today = EventDays.today();
+		Map<Integer, Event> expected = new HashMap<>();
+		for (int round = 0; round < 3000; round++) {
+			int id = 1 + random.nextInt(300);
+			if (random.nextInt(4) == 0) {
+				catalog.remove(id);
+				expected.remove(id);
+			} else {
+				String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+				LocalDate day = today.plusDays(random.nextInt(60) - 10);
+				Date date = random.nextInt(20) == 0 ? null
+						: startOf(day);
+				Event event = new Event(id, name, date, words[random.nextInt(words.length)], "Hall", "random", 10);
+				catalog.put(event);
+				expected.put(id, event);
+			}
+			String prefix = words[random.nextInt(words.length)].substring(0, 1 + random.nextInt(3));
+			int limit = 1 + random.nextInt(12);
+			assertEquals(scan(expected.values(), prefix, limit, today), ids(catalog.suggest(prefix, limit), false),
+					"round " + round + " prefix " + prefix);
+		}
+	}
+
+	private static List<Integer> scan(Collection<Event> events, String prefix, int limit, LocalDate today) {
+		Comparator<Event> soonest = Comparator.comparing((Event event) -> event.getDate() == null ? LocalDate.MAX
+				: LocalDate.ofEpochDay(EventDays.day(event.getDate())))
+				.thenComparing(Event::getId);
+		return events.stream()
+				.filter(event -> event.getDate() == null
+						|| !LocalDate.ofEpochDay(EventDays.day(event.getDate())).isBefore(today))
+				.filter(event -> Arrays.stream((event.getName() + " " + event.getLocation()).split(" "))
+						.anyMatch(word -> word.startsWith(prefix)))
+				.sorted(soonest).limit(limit).map(Event::getId).toList();
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	void searchLatencies() {
+		int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+		long seedStart = System.nanoTime();
+		seed(rows);
+		System.out.printf("seeded and loaded %,d events in %,d ms%n", rows, (System.nanoTime() - seedStart) / 1_000_000);
+
+		Random random = new Random(42);
+		// a selective keyword names one event, a broad one a fifth of them
+		Function<Random, String> selective = r -> "Night " + (5 * r.nextInt(rows / 5) + 1);
+		measure("LIKE selective", random, selective, repo::findByNameContaining, 50);
+		measure("catalog selective", random, selective, catalog::findByName, 2000);
+		Function<Random, String> broad = r -> KEYWORDS[r.nextInt(2)];
+		measure("LIKE broad", random, broad, repo::findByNameContaining, 10);
+		measure("catalog broad", random, broad, catalog::findByName, 100);
+		LocalDate today = EventDays.today();
+		measure("query combined", random,
+				r -> new String[] { "Kolkata", "Hall " + r.nextInt(7), "jazz" }, q -> repo.search(q[0], q[1],
+						startOf(today), startOf(today.plusDays(31)), q[2], Limit.of(100)), 20);
+		measure("search combined", random,
+				r -> new String[] { "Kolkata", "Hall " + r.nextInt(7), "jazz" },
+				q -> catalog.search(q[0], q[1], today, today.plusDays(30), q[2], 100), 2000);
+		measure("query upcoming", random, r -> today.plusDays(r.nextInt(300)),
+				day -> repo.findUpcoming(startOf(day), startOf(day.plusDays(7)), startOf(day), startOf(day.plusDays(1)), 0,
+						Limit.of(100)), 200);
+		measure("catalog upcoming", random, r -> today.plusDays(r.nextInt(300)),
+				day -> catalog.upcoming(day, day.plusDays(6), null, 100), 2000);
+		measure("query near 10 km", random, r -> new double[] { 8 + r.nextDouble() * 27, 68 + r.nextDouble() * 29 },
+				p -> repo.findByLatitudeBetweenAndLongitudeIsNotNull(p[0] - 0.09, p[0] + 0.09).stream()
+						.filter(event -> Geo.distanceKm(p[0], p[1], event.getLatitude(), event.getLongitude()) <= 10)
+						.toList(), 20);
+		measure("catalog near 10 km", random, r -> new double[] { 8 + r.nextDouble() * 27, 68 + r.nextDouble() * 29 },
+				p -> catalog.near(p[0], p[1], 10, 100), 5000);
+		measure("catalog near 50 km", random, r -> new double[] { 8 + r.nextDouble() * 27, 68 + r.nextDouble() * 29 },
+				p -> catalog.near(p[0], p[1], 50, 100), 2000);
+		measure("search location", random, r -> new String[] { "Mumbai" },
+				q -> catalog.search(q[0], null, null, null, null, 100), 2000);
+		String[] prefixes = { "r", "ro", "jaz", "kolk", "new d", "night 1", "festival 12" };
+		measure("suggest", random, r -> prefixes[r.nextInt(prefixes.length)], q -> catalog.suggest(q, 10), 20_000);
+	}
+
+	private <Q> void measure(String query, Random random, Function<Random, Q> keywords,
+			Function<Q, List<Event>> search, int iterations) {
+		int warmup = iterations / 10;
+		long[] nanos = new long[iterations];
+		for (int i = 0; i < warmup + iterations; i++) {
+			Q keyword = keywords.apply(random);
+			long start = System.nanoTime();
+			search.apply(keyword);
+			long elapsed = System.nanoTime() - start;
+			if (i >= warmup) {
+				nanos[i - warmup] = elapsed;
+			}
+			entityManager.clear();
+		}
+		Arrays.sort(nanos);
+		System.out.printf("%-18s p50 %10.1f us   p99 %10.1f us%n", query, nanos[iterations / 2] / 1000.0,
+				nanos[iterations * 99 / 100] / 1000.0);
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+
+class EventChangeNotifierTests {
+
+	private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+	private final EventChangeNotifier notifier = new EventChangeNotifier(discoveryClient, RestClient.builder(),
+			Duration.ofMillis(100), "", 1, 10);
+
+	@AfterEach
+	void tearDown() {
+		notifier.destroy();
+	}
+
+	@Test
+	void theCallerDoesNotWaitForTheNotices() throws Exception {
+		CountDownLatch registry = new CountDownLatch(1);
+		when(discoveryClient.getInstances("BOOKING-SERVICE")).thenAnswer(inv -> {
+			registry.await();
+			return List.of();
+		});
+		CountDownLatch returned = new CountDownLatch(1);
+		Thread caller = new Thread(() -> {
+			notifier.eventChanged(7);
+			returned.countDown();
+		});
+		caller.start();
+		assertTrue(returned.await(5, TimeUnit.SECONDS));
+		registry.countDown();
+		verify(discoveryClient, timeout(5000)).getInstances("EVENT-SERVICE");
+	}
+
+	@Test
+	void noticesWaitForTheCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			notifier.eventCreated(7);
+			verify(discoveryClient, never()).getInstances("EVENT-SERVICE");
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		verify(discoveryClient, timeout(5000)).getInstances("EVENT-SERVICE");
+	}
+
+}
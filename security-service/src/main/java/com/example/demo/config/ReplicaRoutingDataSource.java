@@ -0,0 +1,242 @@
+package com.example.demo.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections to read-only transactions and primary
+ * connections to everything else. It must sit behind a
+ * {@link LazyConnectionDataSourceProxy} so that the connection is fetched after
+ * the transaction has been flagged read-only.
+ *
+ * Reads are kept consistent with the caller's own writes by comparing when the
+ * caller last wrote with how far each replica has caught up. A heartbeat row is
+ * written to the primary every check interval and read back from each replica;
+ * the newest heartbeat a replica holds is the point up to which it has applied
+ * the primary's commits. A replica is only used for a caller whose last write
+ * is older than that point. The caller is whoever {@link #bindCaller} was
+ * called for, which {@link ReadYourWritesFilter} does per request from the
+ * {@code X-Last-Write} header, so it follows the caller across threads and
+ * instances. Threads outside a request count as their own caller. Instance
+ * clocks are assumed to agree to well within the check interval.
+ *
+ * Replicas are used round-robin; one that fails to give a connection is
+ * skipped for the retry period, and with no replica available or caught up
+ * reads go to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicLongArray downUntil;
+    // primary time of the newest heartbeat each replica holds, 0 until one is seen
+    private final AtomicLongArray caughtUpTo;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<Caller> ownCaller = ThreadLocal.withInitial(() -> new Caller(0, null));
+    private final ThreadLocal<Caller> boundCaller = new ThreadLocal<>();
+    private final long retryMillis;
+    private final ScheduledExecutorService lagChecks;
+    private volatile boolean heartbeatTableReady;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration lagCheckInterval,
+            Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.downUntil = new AtomicLongArray(replicas.size());
+        this.caughtUpTo = new AtomicLongArray(replicas.size());
+        this.retryMillis = retryAfter.toMillis();
+        this.lagChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, lagCheckInterval.toMillis());
+        lagChecks.scheduleWithFixedDelay(() -> {
+            try {
+                checkLag();
+            } catch (RuntimeException e) {
+                logger.warn("Replica lag check failed", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes the current thread act for a caller that last wrote at
+     * {@code lastWrite} (0 if never or unknown) until {@link #unbindCaller}.
+     * Writes made meanwhile are passed to {@code onWrite}.
+     */
+    public void bindCaller(long lastWrite, LongConsumer onWrite) {
+        boundCaller.set(new Caller(lastWrite, onWrite));
+    }
+
+    public void unbindCaller() {
+        boundCaller.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(username, password);
+    }
+
+    private Connection connect(String username, String password) throws SQLException {
+        Caller caller = caller();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                noteWrite(caller);
+            }
+            return open(primary, username, password);
+        }
+        long lastWrite = caller.lastWrite;
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % count;
+            long now = System.currentTimeMillis();
+            if (downUntil.get(index) > now || (lastWrite > 0 && caughtUpTo.get(index) < lastWrite)) {
+                continue;
+            }
+            try {
+                return open(replicas.get(index), username, password);
+            } catch (SQLException e) {
+                markDown(index, e);
+            }
+        }
+        return open(primary, username, password);
+    }
+
+    private static Connection open(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private Caller caller() {
+        Caller caller = boundCaller.get();
+        return caller != null ? caller : ownCaller.get();
+    }
+
+    private void noteWrite(Caller caller) {
+        caller.wrote(System.currentTimeMillis());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // replicas must hold the commit, which is later than the first write
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    caller.wrote(System.currentTimeMillis());
+                }
+            });
+        }
+    }
+
+    private void markDown(int index, SQLException e) {
+        downUntil.set(index, System.currentTimeMillis() + retryMillis);
+        logger.warn("Replica {} unavailable for {} ms: {}", index, retryMillis, e.getMessage());
+    }
+
+    /**
+     * Writes a heartbeat to the primary and records, for each replica, the
+     * newest heartbeat it has applied.
+     */
+    void checkLag() {
+        try (Connection connection = primary.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!heartbeatTableReady) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat "
+                            + "(id INT PRIMARY KEY, written_at BIGINT NOT NULL)");
+                }
+                heartbeatTableReady = true;
+            }
+            long now = System.currentTimeMillis();
+            try (PreparedStatement update = connection
+                    .prepareStatement("UPDATE replica_heartbeat SET written_at = ? WHERE id = 0")) {
+                update.setLong(1, now);
+                if (update.executeUpdate() == 0) {
+                    try (PreparedStatement insert = connection
+                            .prepareStatement("INSERT INTO replica_heartbeat (id, written_at) VALUES (0, ?)")) {
+                        insert.setLong(1, now);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not write the replica heartbeat: {}", e.getMessage());
+        }
+        for (int index = 0; index < replicas.size(); index++) {
+            if (downUntil.get(index) > System.currentTimeMillis()) {
+                continue;
+            }
+            try (Connection connection = replicas.get(index).getConnection();
+                    Statement statement = connection.createStatement();
+                    ResultSet row = statement.executeQuery("SELECT written_at FROM replica_heartbeat WHERE id = 0")) {
+                if (row.next()) {
+                    caughtUpTo.accumulateAndGet(index, row.getLong(1), Math::max);
+                }
+            } catch (SQLException e) {
+                // a replica without the table yet has simply not caught up
+                logger.debug("No heartbeat from replica {}: {}", index, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lagChecks.shutdownNow();
+        for (DataSource dataSource : replicas) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Caller {
+
+        private volatile long lastWrite;
+        private final LongConsumer onWrite;
+
+        Caller(long lastWrite, LongConsumer onWrite) {
+            this.lastWrite = lastWrite;
+            this.onWrite = onWrite;
+        }
+
+        void wrote(long at) {
+            lastWrite = Math.max(lastWrite, at);
+            if (onWrite != null) {
+                onWrite.accept(lastWrite);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-process cache of immutable {@link UserDetails} keyed by username. Entries
+ * live for a bounded time and the cache holds a bounded number of users;
+ * {@code UserServiceImpl} evicts a user whenever it is updated or deleted.
+ *
+ * A load that read the user before an eviction must not cache what it read.
+ * Each eviction is stamped from a counter and remembered for the TTL; a load
+ * notes the counter before reading and only stores its result if the user has
+ * not been evicted since. Both sides run under the map's lock for the key.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // stamp and time of each user's latest eviction, kept for the TTL
+    private final Map<String, Eviction> evicted = new ConcurrentHashMap<>();
+    private final AtomicLong stamps = new AtomicLong();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") int maxSize,
+            @Value("${security.user-cache.ttl:10m}") Duration ttl, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.hits = Counter.builder("security.user.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("security.user.cache.requests").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("security.user.cache.evictions").register(registry);
+        Gauge.builder("security.user.cache.size", entries, Map::size).register(registry);
+        Gauge.builder("security.user.cache.hit.ratio", this, UserDetailsCache::hitRatio).register(registry);
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.user;
+        }
+        misses.increment();
+        long seen = stamps.get();
+        UserDetails user = loader.apply(username);
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        entries.compute(username, (key, current) -> {
+            Eviction eviction = evicted.get(key);
+            // evicted while loading, what was read may already be stale
+            return eviction != null && eviction.stamp > seen ? current : new Entry(user, now + ttlMillis);
+        });
+        return user;
+    }
+
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (evicted.size() >= maxSize) {
+            evicted.values().removeIf(eviction -> eviction.at + ttlMillis <= now);
+        }
+        boolean[] removed = new boolean[1];
+        entries.compute(username, (key, current) -> {
+            evicted.put(key, new Eviction(stamps.incrementAndGet(), now));
+            removed[0] = current != null;
+            return null;
+        });
+        if (removed[0]) {
+            evictions.increment();
+        }
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        evicted.values().removeIf(eviction -> eviction.at + ttlMillis <= now);
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 16);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toEvict-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static final class Entry {
+        private final UserDetails user;
+        private final long expiresAt;
+
+        private Entry(UserDetails user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Eviction {
+        private final long stamp;
+        private final long at;
+
+        private Eviction(long stamp, long at) {
+            this.stamp = stamp;
+            this.at = at;
+        }
+    }
+
+}
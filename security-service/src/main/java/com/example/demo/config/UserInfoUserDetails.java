@@ -3,7 +3,8 @@ package com.example.demo.config;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -11,19 +12,53 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import com.example.demo.entity.User;
 
+/**
+ * Immutable view of a {@code User} for Spring Security. Instances are shared
+ * through {@link UserDetailsCache}, so nothing here may change after creation.
+ */
 public class UserInfoUserDetails implements UserDetails {
 
+    // a handful of distinct role strings exist, so their parsed authorities are shared
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
 
-    private String name;
-    private String password;
-    private List<GrantedAuthority> authorities;
+    private final int id;
+    private final String name;
+    private final String password;
+    private final String roles;
+    private final List<GrantedAuthority> authorities;
 
     public UserInfoUserDetails(User userInfo) {
+        id=userInfo.getId();
         name=userInfo.getName();
         password=userInfo.getPassword();
-        authorities= Arrays.stream(userInfo.getRole().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        roles=userInfo.getRole();
+        authorities=authoritiesOf(roles);
+    }
+
+    /**
+     * Identity asserted by the gateway; carries no password.
+     */
+    public UserInfoUserDetails(int id, String name, String roles) {
+        this.id=id;
+        this.name=name;
+        this.password=null;
+        this.roles=roles;
+        this.authorities=authoritiesOf(roles);
+    }
+
+    private static List<GrantedAuthority> authoritiesOf(String roles) {
+        return AUTHORITIES.computeIfAbsent(roles, value -> Arrays.stream(value.split(","))
+                .filter(role -> !role.isBlank())
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getRoles() {
+        return roles;
     }
 
     @Override
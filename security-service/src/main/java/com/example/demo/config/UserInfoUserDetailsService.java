@@ -17,11 +17,17 @@ public class UserInfoUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepo repository;
 
+    @Autowired
+    private UserDetailsCache cache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return cache.get(username, this::loadFromRepository);
+    }
+
+    private UserDetails loadFromRepository(String username) {
         Optional<User> userInfo = repository.findByName(username);
         return userInfo.map(UserInfoUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException("user not found " + username));
-
     }
 }
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.config.UserInfoUserDetails;
 import com.example.demo.dto.AuthRequest;
 import com.example.demo.dto.JWTResponse;
 import com.example.demo.entity.User;
@@ -59,8 +60,9 @@ public class AuthController {
     public JWTResponse authenticateAndGetToken(@RequestBody AuthRequest authRequest) {
         Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword()));
         if (authentication.isAuthenticated()) {
-        	User obj = repo.findByName(authRequest.getUsername()).orElse(null);
-            return new JWTResponse(obj.getId(),jwtService.generateToken(authRequest.getUsername(),obj.getRole()),obj.getRole());
+        	// the principal comes from the user cache, no second credentials lookup
+        	UserInfoUserDetails obj = (UserInfoUserDetails) authentication.getPrincipal();
+            return new JWTResponse(obj.getId(),jwtService.generateToken(obj.getId(),authRequest.getUsername(),obj.getRoles()),obj.getRoles());
         } else {
             throw new UsernameNotFoundException("invalid user request !");
         }
@@ -0,0 +1,42 @@
+package com.example.demo.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.dto.UserWrapper;
+import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.service.UserService;
+
+/**
+ * Lookups for other services. Not routed by the api-gateway, and only served
+ * to internal callers and admins, see {@code SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/internal")
+public class InternalUserController {
+
+	private UserService service;
+
+	public InternalUserController(UserService service) {
+		this.service = service;
+	}
+
+	// slim id/name/email lookup of one user
+	@GetMapping("/users/{id}")
+	public ResponseEntity<UserWrapper> getUserById(@PathVariable int id) throws UserNotFoundException {
+		return ResponseEntity.ok(service.getSummaryById(id));
+	}
+
+	// slim id/name/email lookup of many users
+	@GetMapping("/users")
+	public ResponseEntity<List<UserWrapper>> getUsersByIds(@RequestParam List<Integer> ids) {
+		return ResponseEntity.ok(service.getByIds(ids));
+	}
+
+}
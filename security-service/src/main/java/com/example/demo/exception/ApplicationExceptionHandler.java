@@ -3,8 +3,10 @@ package com.example.demo.exception;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -27,5 +29,20 @@ public class ApplicationExceptionHandler {
 		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
 	}
 
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<String> handleServiceBusyException(ServiceBusyException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+
+	// the authentication provider wraps what fails while it looks up the user, a full hashing pool included
+	@ExceptionHandler(InternalAuthenticationServiceException.class)
+	public ResponseEntity<String> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException ex) {
+		if (ex.getCause() instanceof ServiceBusyException busy) {
+			return handleServiceBusyException(busy);
+		}
+		throw ex;
+	}
+
 
 }
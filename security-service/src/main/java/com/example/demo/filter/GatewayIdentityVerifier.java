@@ -0,0 +1,93 @@
+package com.example.demo.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.UserInfoUserDetails;
+
+/**
+ * Verifies the identity header the api-gateway signs after it has validated a
+ * JWT: {@code base64url(userId|expSeconds|roles|name) + "." + base64url(HMAC-SHA256)}.
+ * A valid header is enough to authenticate the request, without a second JWT
+ * parse or a credentials lookup.
+ * <p>
+ * Headers are only honoured with {@code gateway.identity.trusted=true}, and
+ * then {@code gateway.identity.secret} must hold the gateway's key of at least
+ * 32 bytes or the service does not start. Enable it only where the service is
+ * reachable through the gateway alone.
+ */
+@Component
+public class GatewayIdentityVerifier {
+
+    public static final String HEADER = "X-Authenticated-Identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final SecretKeySpec key;
+    private final boolean trusted;
+
+    public GatewayIdentityVerifier(@Value("${gateway.identity.secret:}") String secret,
+            @Value("${gateway.identity.trusted:false}") boolean trusted) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (trusted && secretBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("gateway.identity.trusted requires gateway.identity.secret of at least "
+                    + MIN_SECRET_BYTES + " bytes");
+        }
+        this.key = trusted ? new SecretKeySpec(secretBytes, ALGORITHM) : null;
+        this.trusted = trusted;
+    }
+
+    /**
+     * @return the asserted user, or {@code null} if trusted-gateway mode is off
+     *         or the header is malformed, forged or expired
+     */
+    public UserInfoUserDetails verify(String header) {
+        if (!trusted || header == null) {
+            return null;
+        }
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(header.substring(0, dot));
+            byte[] signature = decoder.decode(header.substring(dot + 1));
+            if (!MessageDigest.isEqual(hmac(payload), signature)) {
+                return null;
+            }
+
+            String[] fields = new String(payload, StandardCharsets.UTF_8).split("\\|", 4);
+            if (fields.length != 4 || fields[0].isEmpty()) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(fields[1]) * 1000;
+            if (expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            return new UserInfoUserDetails(Integer.parseInt(fields[0]), fields[3], fields[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to verify identity header", e);
+        }
+    }
+
+}
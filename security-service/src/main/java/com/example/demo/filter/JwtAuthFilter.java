@@ -1,9 +1,11 @@
 package com.example.demo.filter;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,6 +15,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.example.demo.config.UserInfoUserDetailsService;
 import com.example.demo.service.JwtService;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,24 +30,44 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private UserInfoUserDetailsService userDetailsService;
 
+    @Autowired
+    private GatewayIdentityVerifier identityVerifier;
+
+    @Autowired
+    private InternalCallerVerifier internalCallerVerifier;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtService.extractUsername(token);
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // identity already verified and signed by the gateway: no JWT parse, no DB lookup
+            UserDetails gatewayIdentity = identityVerifier.verify(request.getHeader(GatewayIdentityVerifier.HEADER));
+            if (gatewayIdentity != null) {
+                authenticate(request, gatewayIdentity);
+            } else if (internalCallerVerifier.verify(request.getHeader(InternalCallerVerifier.HEADER))) {
+                UsernamePasswordAuthenticationToken internal = new UsernamePasswordAuthenticationToken("internal", null,
+                        List.of(new SimpleGrantedAuthority("ROLE_INTERNAL")));
+                SecurityContextHolder.getContext().setAuthentication(internal);
+            } else {
+                authenticateBearerToken(request);
+            }
         }
+        filterChain.doFilter(request, response);
+    }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.validateToken(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+    private void authenticateBearerToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            Claims claims = jwtService.extractAllClaims(authHeader.substring(7));
+            UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            if (jwtService.validateToken(claims, userDetails)) {
+                authenticate(request, userDetails);
             }
         }
-        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
     }
 }
@@ -1,13 +1,21 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.UserWrapper;
 import com.example.demo.entity.User;
 
 @Repository
 public interface UserRepo extends JpaRepository<User, Integer> {
 	Optional<User> findByName(String username);
+
+	@Query("SELECT new com.example.demo.dto.UserWrapper(u.id, u.name, u.email) FROM User u WHERE u.id IN :ids")
+	List<UserWrapper> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
 }
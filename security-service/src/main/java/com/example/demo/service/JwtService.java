@@ -33,7 +33,7 @@ public class JwtService {
 		return claimsResolver.apply(claims);
 	}
 
-	private Claims extractAllClaims(String token) {
+	public Claims extractAllClaims(String token) {
 		return Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody();
 	}
 
@@ -46,10 +46,14 @@ public class JwtService {
 		return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
 	}
 
-	public String generateToken(String userName, String roles) {
+	public Boolean validateToken(Claims claims, UserDetails userDetails) {
+		return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
+	}
+
+	public String generateToken(int userId, String userName, String roles) {
 		Map<String, Object> claims = new HashMap<>();
 		claims.put("roles", roles);
-		System.out.println(claims);
+		claims.put("userId", userId);
 		return createToken(claims, userName);
 	}
 
@@ -1,6 +1,9 @@
 package com.example.demo.service;
 
+import java.util.Collection;
 import java.util.List;
+
+import com.example.demo.dto.UserWrapper;
 import com.example.demo.entity.User;
 import com.example.demo.exception.UserNotFoundException;
 
@@ -12,6 +15,10 @@ public interface UserService {
 
 	User getById(Integer id) throws UserNotFoundException;
 
+	UserWrapper getSummaryById(Integer id) throws UserNotFoundException;
+
+	List<UserWrapper> getByIds(Collection<Integer> ids);
+
 	void update(User user) throws UserNotFoundException;
 
 	String delete(Integer id) throws UserNotFoundException;
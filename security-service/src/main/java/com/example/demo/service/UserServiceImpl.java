@@ -1,11 +1,17 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.config.UserDetailsCache;
+import com.example.demo.dto.UserWrapper;
 import com.example.demo.entity.User;
 import com.example.demo.exception.UserNotFoundException;
 import com.example.demo.feign.BookingClient;
@@ -23,8 +29,14 @@ public class UserServiceImpl implements UserService {
      */
     private String message = "User not found with id : ";
 
+    /**
+     * Upper bound on the ids sent in a single {@code IN} query.
+     */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     private UserRepo repo;
     private BookingClient bookingClient;
+    private UserDetailsCache userDetailsCache;
     
     @Autowired
 	private PasswordEncoder passwordEncoder;
@@ -34,10 +46,12 @@ public class UserServiceImpl implements UserService {
      * repository.
      *
      * @param repo The {@code UserRepo} used for data access operations.
+     * @param userDetailsCache The cache of authenticated users, evicted on changes.
      */
-    public UserServiceImpl(UserRepo repo, BookingClient bookingClient) {
+    public UserServiceImpl(UserRepo repo, BookingClient bookingClient, UserDetailsCache userDetailsCache) {
         this.repo = repo;
         this.bookingClient = bookingClient;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
@@ -63,6 +77,7 @@ public class UserServiceImpl implements UserService {
      *
      * @return A list of {@code User} entities.
      */
+    @Transactional(readOnly = true)
     public List<User> getAll() {
         return repo.findAll();
     }
@@ -74,10 +89,45 @@ public class UserServiceImpl implements UserService {
      * @return The {@code User} entity if found, or {@code null} if not found.
      * @throws UserNotFoundException if the user entity is not found.
      */
+    @Transactional(readOnly = true)
     public User getById(Integer id) throws UserNotFoundException {
         return repo.findById(id).orElseThrow(() -> new UserNotFoundException(message + id));
     }
 
+    /**
+     * Retrieves the id, name and email of a user; password and role are never loaded.
+     *
+     * @param id The ID of the user to retrieve.
+     * @return The {@code UserWrapper} projection of the user.
+     * @throws UserNotFoundException If no user exists with the given ID.
+     */
+    @Transactional(readOnly = true)
+    public UserWrapper getSummaryById(Integer id) throws UserNotFoundException {
+        List<UserWrapper> users = repo.findSummariesByIdIn(List.of(id));
+        if (users.isEmpty()) {
+            throw new UserNotFoundException(message + id);
+        }
+        return users.get(0);
+    }
+
+    /**
+     * Retrieves the id, name and email of several users in one round trip.
+     * Unknown ids are skipped; password and role are never loaded.
+     *
+     * @param ids The IDs of the users to retrieve.
+     * @return A list of {@code UserWrapper} projections, one per existing user.
+     */
+    @Transactional(readOnly = true)
+    public List<UserWrapper> getByIds(Collection<Integer> ids) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<UserWrapper> users = new ArrayList<>(distinctIds.size());
+        for (int from = 0; from < distinctIds.size(); from += MAX_IDS_PER_QUERY) {
+            int to = Math.min(from + MAX_IDS_PER_QUERY, distinctIds.size());
+            users.addAll(repo.findSummariesByIdIn(distinctIds.subList(from, to)));
+        }
+        return users;
+    }
+
     /**
      * Updates an existing user entity in the repository.
      *
@@ -93,6 +143,8 @@ public class UserServiceImpl implements UserService {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
         repo.save(user);
+        userDetailsCache.invalidate(existingUser.getName());
+        userDetailsCache.invalidate(user.getName());
     }
 
     /**
@@ -103,10 +155,9 @@ public class UserServiceImpl implements UserService {
      * @return A message indicating successful deletion.
      */
     public String delete(Integer id) throws UserNotFoundException {
-        if (!repo.existsById(id)) {
-            throw new UserNotFoundException(message + id);
-        }
+        User existingUser = repo.findById(id).orElseThrow(() -> new UserNotFoundException(message + id));
         repo.deleteById(id);
+        userDetailsCache.invalidate(existingUser.getName());
         bookingClient.deleteBookingByUserId(id);
         return "User deleted successfully";
     }
@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserDetailsCacheTests {
+
+    private final UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private UserDetails load(String username) {
+        loads.incrementAndGet();
+        return User.withUsername(username).password("hash").roles("USER").build();
+    }
+
+    @Test
+    void aLoadedUserIsServedFromTheCacheUntilEvicted() {
+        UserDetails first = cache.get("alice", this::load);
+        assertSame(first, cache.get("alice", this::load));
+        assertEquals(1, loads.get());
+
+        cache.invalidate("alice");
+        cache.get("alice", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void aLoadThatRacesAnEvictionIsNotCached() {
+        // the user is updated and evicted after the load has read the old row
+        cache.get("alice", username -> {
+            UserDetails stale = load(username);
+            cache.invalidate(username);
+            return stale;
+        });
+        cache.get("alice", this::load);
+        assertEquals(2, loads.get());
+
+        // evictions of other users do not hold back this one
+        cache.get("bob", username -> {
+            UserDetails bob = load(username);
+            cache.invalidate("alice");
+            return bob;
+        });
+        cache.get("bob", this::load);
+        assertEquals(3, loads.get());
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.config.SecurityConfig;
+import com.example.demo.config.UserDetailsCache;
+import com.example.demo.config.UserInfoUserDetailsService;
+import com.example.demo.dto.UserWrapper;
+import com.example.demo.filter.GatewayIdentityVerifier;
+import com.example.demo.filter.InternalCallerVerifier;
+import com.example.demo.repository.UserRepo;
+import com.example.demo.service.JwtService;
+import com.example.demo.service.UserService;
+
+@WebMvcTest(controllers = InternalUserController.class, properties = "internal.api-key=test-internal-key")
+@Import({ SecurityConfig.class, UserInfoUserDetailsService.class, GatewayIdentityVerifier.class, InternalCallerVerifier.class })
+class InternalUserControllerTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private JwtService jwtService;
+
+    @MockitoBean
+    private UserRepo userRepo;
+
+    @MockitoBean
+    private UserDetailsCache userDetailsCache;
+
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void anonymousCallersAreRefused() throws Exception {
+        mvc.perform(get("/internal/users").param("ids", "1,2")).andExpect(status().isForbidden());
+        mvc.perform(get("/internal/users").param("ids", "1,2").header(InternalCallerVerifier.HEADER, "guess"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void internalCallersGetTheUsers() throws Exception {
+        when(userService.getByIds(List.of(1, 2))).thenReturn(List.of(new UserWrapper(1, "alice", "alice@example.com")));
+        mvc.perform(get("/internal/users").param("ids", "1,2").header(InternalCallerVerifier.HEADER, "test-internal-key"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("alice"));
+    }
+
+    @Test
+    void internalCallersGetOneUserWithoutItsPassword() throws Exception {
+        when(userService.getSummaryById(1)).thenReturn(new UserWrapper(1, "alice", "alice@example.com"));
+        mvc.perform(get("/internal/users/1")).andExpect(status().isForbidden());
+        mvc.perform(get("/internal/users/1").header(InternalCallerVerifier.HEADER, "test-internal-key"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("alice"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    void theLookupIsNoLongerUnderTheOpenAuthPrefix() throws Exception {
+        mvc.perform(get("/auth/users").param("ids", "1,2")).andExpect(status().isNotFound());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.example.demo.exception;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+class ApplicationExceptionHandlerTests {
+
+    private final UserDetailsService users = mock(UserDetailsService.class);
+    // a saturated hashing pool, as BoundedPasswordEncoder reports it
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(encoder.encode(any())).thenReturn("hash");
+        when(encoder.matches(any(), any())).thenThrow(new ServiceBusyException("Too many concurrent logins"));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(encoder);
+        provider.setUserDetailsService(users);
+        mvc = MockMvcBuilders.standaloneSetup(new LoginController(new ProviderManager(provider)))
+                .setControllerAdvice(new ApplicationExceptionHandler()).build();
+    }
+
+    @Test
+    void aBusyPoolAnswersUnknownUsersWith503() throws Exception {
+        when(users.loadUserByUsername(anyString())).thenThrow(new UsernameNotFoundException("unknown"));
+        mvc.perform(post("/login").param("username", "nobody").param("password", "secret"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void aBusyPoolWrappedByTheProviderStillAnswers503() throws Exception {
+        // failures while loading the user reach the caller wrapped in InternalAuthenticationServiceException
+        when(users.loadUserByUsername(anyString())).thenThrow(new ServiceBusyException("Too many concurrent logins"));
+        mvc.perform(post("/login").param("username", "alice").param("password", "secret"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @RestController
+    static class LoginController {
+
+        private final AuthenticationManager authenticationManager;
+
+        LoginController(AuthenticationManager authenticationManager) {
+            this.authenticationManager = authenticationManager;
+        }
+
+        @PostMapping("/login")
+        void login(@RequestParam String username, @RequestParam String password) {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+        }
+
+    }
+
+}
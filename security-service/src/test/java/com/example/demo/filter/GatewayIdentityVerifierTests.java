@@ -0,0 +1,53 @@
+package com.example.demo.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.config.UserInfoUserDetails;
+
+class GatewayIdentityVerifierTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private static String sign(String secret, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(bytes) + "." + encoder.encodeToString(mac.doFinal(bytes));
+    }
+
+    private static String payload(String name) {
+        return "7|" + (System.currentTimeMillis() / 1000 + 60) + "|ROLE_USER|" + name;
+    }
+
+    @Test
+    void headersAreIgnoredUnlessTrustIsEnabled() throws Exception {
+        GatewayIdentityVerifier verifier = new GatewayIdentityVerifier("", false);
+        assertNull(verifier.verify(sign(SECRET, payload("alice"))));
+    }
+
+    @Test
+    void trustWithoutAStrongSecretRefusesToStart() {
+        assertThrows(IllegalStateException.class, () -> new GatewayIdentityVerifier("", true));
+        assertThrows(IllegalStateException.class, () -> new GatewayIdentityVerifier("short", true));
+    }
+
+    @Test
+    void acceptsOnlyHeadersSignedWithTheConfiguredSecret() throws Exception {
+        GatewayIdentityVerifier verifier = new GatewayIdentityVerifier(SECRET, true);
+        UserInfoUserDetails user = verifier.verify(sign(SECRET, payload("alice")));
+        assertEquals("alice", user.getUsername());
+        assertNull(verifier.verify(sign("fedcba9876543210fedcba9876543210", payload("mallory"))));
+    }
+
+}
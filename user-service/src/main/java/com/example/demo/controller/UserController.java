@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.dto.Booking;
@@ -145,6 +146,21 @@ public class UserController {
 		return ResponseEntity.ok(event);
 	}
 
+	/**
+	 * Suggests events while a search is being typed.
+	 *
+	 * @param q     The text typed so far.
+	 * @param limit The maximum number of events to return.
+	 * @return A {@code ResponseEntity} containing upcoming {@code Event} objects
+	 *         with a word of their name or location starting with the text.
+	 */
+	@GetMapping("/search-suggest")
+	public ResponseEntity<List<Event>> suggestEvents(@RequestParam String q,
+			@RequestParam(defaultValue = "10") int limit) {
+		List<Event> events = userService.getEventSuggestions(q, limit);
+		return ResponseEntity.ok(events);
+	}
+
 	/**
 	 * Searches for events by location.
 	 *
@@ -27,4 +27,10 @@ public class Event {
 	@NotEmpty(message = "provide a brief description")
 	private String description;
 
+	private Integer capacity;
+
+	private Double latitude;
+
+	private Double longitude;
+
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import com.example.demo.dto.Booking;
 
@@ -17,8 +18,10 @@ public interface BookingClient {
 	@PostMapping("/bookings")
 	ResponseEntity<Booking> saveBooking(@RequestBody Booking booking);
 
+	// a 304 for a current ETag surfaces as a FeignException with that status
 	@GetMapping("/bookings/user/{id}")
-	public ResponseEntity<List<Booking>> getBookingByUserId(@PathVariable int id);
+	public ResponseEntity<List<Booking>> getBookingByUserId(@PathVariable int id,
+			@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
 
 	@DeleteMapping("/bookings/user/{userId}/event/{eventId}")
 	public ResponseEntity<Void> deleteBookingByUserIdAndEventId(@PathVariable int userId, @PathVariable int eventId);
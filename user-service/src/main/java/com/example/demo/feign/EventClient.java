@@ -6,6 +6,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import com.example.demo.dto.Event;
 
@@ -18,6 +19,9 @@ public interface EventClient {
 	@GetMapping("events/name/{keyword}")
 	public ResponseEntity<List<Event>> getAllEventsByName(@PathVariable String keyword);
 
+	@GetMapping("events/suggest")
+	public ResponseEntity<List<Event>> suggestEvents(@RequestParam String q, @RequestParam int limit);
+
 	@GetMapping("events/location/{keyword}")
 	public ResponseEntity<List<Event>> getAllEventsByLocation(@PathVariable String keyword);
 	
@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.Booking;
+
+/**
+ * Last booking list received from booking-service per user, with its ETag.
+ * Requests revalidate with {@code If-None-Match}, so an unchanged list costs
+ * booking-service neither a query nor a response body.
+ */
+@Component
+public class BookingListCache {
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public BookingListCache(@Value("${user.booking-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cached ETag for the user, or null when nothing is cached.
+     */
+    public String etag(int userId) {
+        Entry entry = entries.get(userId);
+        return entry == null ? null : entry.etag;
+    }
+
+    /**
+     * @return the list cached under the given ETag, or null when it has changed
+     *         since.
+     */
+    public List<Booking> get(int userId, String etag) {
+        Entry entry = entries.get(userId);
+        return entry != null && entry.etag.equals(etag) ? entry.bookings : null;
+    }
+
+    public void put(int userId, String etag, List<Booking> bookings) {
+        if (etag == null) {
+            entries.remove(userId);
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            Iterator<Integer> keys = entries.keySet().iterator();
+            for (int i = 0; i < Math.max(1, maxSize / 16) && keys.hasNext(); i++) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        entries.put(userId, new Entry(etag, List.copyOf(bookings)));
+    }
+
+    public void invalidate(int userId) {
+        entries.remove(userId);
+    }
+
+    private static final class Entry {
+        private final String etag;
+        private final List<Booking> bookings;
+
+        private Entry(String etag, List<Booking> bookings) {
+            this.etag = etag;
+            this.bookings = bookings;
+        }
+    }
+
+}
@@ -28,6 +28,8 @@ public interface UserService {
 	
 	List<Event> getEventsByName(String keyword) throws EventNotFoundException;
 	
+	List<Event> getEventSuggestions(String prefix, int limit);
+	
 	List<Event> getEventsByLocation(String keyword) throws EventNotFoundException;
 	
 	String registerUserToEvent(Integer userId , Integer eventId) throws UserNotFoundException, EventNotFoundException;
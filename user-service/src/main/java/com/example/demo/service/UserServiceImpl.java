@@ -3,7 +3,10 @@ package com.example.demo.service;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.dto.Booking;
 import com.example.demo.dto.Event;
@@ -16,6 +19,8 @@ import com.example.demo.feign.BookingClient;
 import com.example.demo.feign.EventClient;
 import com.example.demo.repository.UserRepo;
 
+import feign.FeignException;
+
 /**
  * Implementation of the {@code UserService} interface, providing CRUD
  * operations for {@code User} entities.
@@ -31,17 +36,21 @@ public class UserServiceImpl implements UserService {
     private UserRepo repo;
     private EventClient eventClient;
     private BookingClient bookingClient;
+    private BookingListCache bookingListCache;
 
     /**
      * Constructs an instance of {@code UserServiceImpl} with the specified
      * repository.
      *
-     * @param repo The {@code UserRepo} used for data access operations.
+     * @param repo             The {@code UserRepo} used for data access operations.
+     * @param bookingListCache The cache of booking lists revalidated by ETag.
      */
-    public UserServiceImpl(UserRepo repo, EventClient eventClient, BookingClient bookingClient) {
+    public UserServiceImpl(UserRepo repo, EventClient eventClient, BookingClient bookingClient,
+            BookingListCache bookingListCache) {
         this.repo = repo;
         this.eventClient = eventClient;
         this.bookingClient = bookingClient;
+        this.bookingListCache = bookingListCache;
     }
 
     /**
@@ -58,6 +67,7 @@ public class UserServiceImpl implements UserService {
      *
      * @return A list of {@code User} entities.
      */
+    @Transactional(readOnly = true)
     public List<User> getAll() {
         return repo.findAll();
     }
@@ -67,6 +77,7 @@ public class UserServiceImpl implements UserService {
      *
      * @return A list of {@code UserWrapper} objects.
      */
+    @Transactional(readOnly = true)
     public List<UserWrapper> getAllUsersForAdmins() {
         List<User> users = repo.findAll();
         List<UserWrapper> userWrappers = new ArrayList<>();
@@ -84,6 +95,7 @@ public class UserServiceImpl implements UserService {
      * @return The {@code User} entity if found, or {@code null} if not found.
      * @throws UserNotFoundException if the user entity is not found.
      */
+    @Transactional(readOnly = true)
     public User getById(Integer id) throws UserNotFoundException {
         return repo.findById(id).orElseThrow(() -> new UserNotFoundException(message + id));
     }
@@ -144,6 +156,19 @@ public class UserServiceImpl implements UserService {
         return event;
     }
 
+    /**
+     * Retrieves autocomplete suggestions for a partly typed event name or
+     * location using the EventClient.
+     *
+     * @param prefix The text typed so far.
+     * @param limit  The maximum number of events to return.
+     * @return Upcoming events matching the prefix, soonest first.
+     */
+    @Override
+    public List<Event> getEventSuggestions(String prefix, int limit) {
+        return eventClient.suggestEvents(prefix, limit).getBody();
+    }
+
     /**
      * Retrieves events by their location using the EventClient.
      *
@@ -195,7 +220,8 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Retrieves bookings for a user by their ID.
+     * Retrieves bookings for a user by their ID. The cached list is sent back
+     * to booking-service as an ETag and reused when it answers 304.
      *
      * @param userId The ID of the user.
      * @return A list of {@code Booking} entities for the user.
@@ -203,13 +229,27 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public List<Booking> getBookingsForUserId(Integer userId) throws BookingNotFoundException {
-        List<Booking> booking;
+        String etag = bookingListCache.etag(userId);
         try {
-            booking = bookingClient.getBookingByUserId(userId).getBody();
-        }catch(Exception e) {
+            ResponseEntity<List<Booking>> response = bookingClient.getBookingByUserId(userId, etag);
+            List<Booking> booking = response.getBody();
+            bookingListCache.put(userId, response.getHeaders().getETag(), booking == null ? List.of() : booking);
+            return booking;
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_MODIFIED.value()) {
+                List<Booking> cached = bookingListCache.get(userId, etag);
+                if (cached != null) {
+                    return cached;
+                }
+                // evicted meanwhile, fetch the full list without an ETag
+                bookingListCache.invalidate(userId);
+                return getBookingsForUserId(userId);
+            }
+            bookingListCache.invalidate(userId);
+            throw new BookingNotFoundException("No bookings found for user " + userId);
+        } catch (Exception e) {
             throw new BookingNotFoundException("No bookings found for user " + userId);
         }
-        return booking;
     }
 
     /**
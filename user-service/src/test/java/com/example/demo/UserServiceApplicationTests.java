@@ -17,6 +17,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import com.example.demo.entity.User;
 import com.example.demo.exception.UserNotFoundException;
+import com.example.demo.feign.BookingClient;
 import com.example.demo.repository.UserRepo;
 import com.example.demo.service.UserServiceImpl;
 
@@ -26,6 +27,9 @@ class UserServiceApplicationTests {
     @Mock
     private UserRepo userRepo;
 
+    @Mock
+    private BookingClient bookingClient;
+
     @InjectMocks
     private UserServiceImpl userService;
 